@@ -21,6 +21,9 @@ public class CrawlerConfig {
     private static final int SINGLE_SITE_ERROR_LIMIT = 30;
     private static final int SINGLE_SITE_PAGINATION_MAX = 50;
     private static final int SINGLE_SITE_POOL_SIZE = 24;
+    private static final int SINGLE_SITE_MAX_IN_FLIGHT = 64;
+    private static final double SINGLE_SITE_HOST_RATE = 5.0;
+    private static final int SINGLE_SITE_HOST_BURST = 5;
     private static final int SINGLE_SITE_QUEUE_CAPACITY = 1000;
     private static final int SINGLE_SITE_MAX_CONCURRENT_BROWSERS = 2;
     private static final long SINGLE_SITE_IDLE_TIMEOUT = 30000;
@@ -38,6 +41,9 @@ public class CrawlerConfig {
     private static final int MULTI_SITE_ERROR_LIMIT = 50;
     private static final int MULTI_SITE_PAGINATION_MAX = 30;
     private static final int MULTI_SITE_POOL_SIZE = 8;
+    private static final int MULTI_SITE_MAX_IN_FLIGHT = 24;
+    private static final double MULTI_SITE_HOST_RATE = 2.0;
+    private static final int MULTI_SITE_HOST_BURST = 2;
     private static final int MULTI_SITE_QUEUE_CAPACITY = 500;
     private static final int MULTI_SITE_MAX_CONCURRENT_BROWSERS = 3;
     private static final long MULTI_SITE_IDLE_TIMEOUT = 120000;
@@ -50,6 +56,22 @@ public class CrawlerConfig {
     private List<String> jsEnabledSites;
     private int jsTimeout = 30000;
     private int jsWait = 5000;
+    private boolean virtualThreads = true;
+    private boolean httpClientFetcher = true;
+    private boolean respectRobots = true;
+    private boolean useSitemaps = true;
+    private String frontierDir = "crawl-state";
+    private boolean resumeInterrupted = true;
+    private boolean adaptiveConcurrency = true;
+    private long targetLatencyMs = 3000;
+    private int globalWorkers = 96;
+    private int maxConcurrentSites = 4;
+    private int analyzeThreads = Runtime.getRuntime().availableProcessors();
+    private int persistThreads = 4;
+    private int stageQueueCapacity = 256;
+    private long lemmaCacheEntries = 500_000;
+    private long frequencyFlushIntervalMs = 5000;
+    private boolean shadowRebuild = true;
 
     // ===========================================
     // 🔧 ТУМБЛЕР ПЕРЕКЛЮЧЕНИЯ ПРОФИЛЕЙ
@@ -79,6 +101,70 @@ public class CrawlerConfig {
         return jsWait;
     }
 
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    public boolean isHttpClientFetcher() {
+        return httpClientFetcher;
+    }
+
+    public boolean isRespectRobots() {
+        return respectRobots;
+    }
+
+    public boolean isUseSitemaps() {
+        return useSitemaps;
+    }
+
+    public String getFrontierDir() {
+        return frontierDir;
+    }
+
+    public boolean isResumeInterrupted() {
+        return resumeInterrupted;
+    }
+
+    public boolean isAdaptiveConcurrency() {
+        return adaptiveConcurrency;
+    }
+
+    public long getTargetLatencyMs() {
+        return targetLatencyMs;
+    }
+
+    public int getGlobalWorkers() {
+        return globalWorkers;
+    }
+
+    public int getMaxConcurrentSites() {
+        return maxConcurrentSites;
+    }
+
+    public int getAnalyzeThreads() {
+        return analyzeThreads;
+    }
+
+    public int getPersistThreads() {
+        return persistThreads;
+    }
+
+    public int getStageQueueCapacity() {
+        return stageQueueCapacity;
+    }
+
+    public long getLemmaCacheEntries() {
+        return lemmaCacheEntries;
+    }
+
+    public long getFrequencyFlushIntervalMs() {
+        return frequencyFlushIntervalMs;
+    }
+
+    public boolean isShadowRebuild() {
+        return shadowRebuild;
+    }
+
 
     public int getMaxDepth() {
         return multiSiteMode ? MULTI_SITE_MAX_DEPTH : SINGLE_SITE_MAX_DEPTH;
@@ -110,6 +196,18 @@ public class CrawlerConfig {
         return multiSiteMode ? MULTI_SITE_POOL_SIZE : SINGLE_SITE_POOL_SIZE;
     }
 
+    public int getMaxInFlightPages() {
+        return multiSiteMode ? MULTI_SITE_MAX_IN_FLIGHT : SINGLE_SITE_MAX_IN_FLIGHT;
+    }
+
+    public double getHostRequestsPerSecond() {
+        return multiSiteMode ? MULTI_SITE_HOST_RATE : SINGLE_SITE_HOST_RATE;
+    }
+
+    public int getHostBurst() {
+        return multiSiteMode ? MULTI_SITE_HOST_BURST : SINGLE_SITE_HOST_BURST;
+    }
+
     public int getQueueCapacity() {
         return multiSiteMode ? MULTI_SITE_QUEUE_CAPACITY : SINGLE_SITE_QUEUE_CAPACITY;
     }
@@ -143,6 +241,70 @@ public class CrawlerConfig {
         this.jsWait = jsWait;
     }
 
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    public void setHttpClientFetcher(boolean httpClientFetcher) {
+        this.httpClientFetcher = httpClientFetcher;
+    }
+
+    public void setRespectRobots(boolean respectRobots) {
+        this.respectRobots = respectRobots;
+    }
+
+    public void setUseSitemaps(boolean useSitemaps) {
+        this.useSitemaps = useSitemaps;
+    }
+
+    public void setFrontierDir(String frontierDir) {
+        this.frontierDir = frontierDir;
+    }
+
+    public void setResumeInterrupted(boolean resumeInterrupted) {
+        this.resumeInterrupted = resumeInterrupted;
+    }
+
+    public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+        this.adaptiveConcurrency = adaptiveConcurrency;
+    }
+
+    public void setTargetLatencyMs(long targetLatencyMs) {
+        this.targetLatencyMs = targetLatencyMs;
+    }
+
+    public void setGlobalWorkers(int globalWorkers) {
+        this.globalWorkers = globalWorkers;
+    }
+
+    public void setMaxConcurrentSites(int maxConcurrentSites) {
+        this.maxConcurrentSites = maxConcurrentSites;
+    }
+
+    public void setAnalyzeThreads(int analyzeThreads) {
+        this.analyzeThreads = analyzeThreads;
+    }
+
+    public void setPersistThreads(int persistThreads) {
+        this.persistThreads = persistThreads;
+    }
+
+    public void setStageQueueCapacity(int stageQueueCapacity) {
+        this.stageQueueCapacity = stageQueueCapacity;
+    }
+
+    public void setLemmaCacheEntries(long lemmaCacheEntries) {
+        this.lemmaCacheEntries = lemmaCacheEntries;
+    }
+
+    public void setFrequencyFlushIntervalMs(long frequencyFlushIntervalMs) {
+        this.frequencyFlushIntervalMs = frequencyFlushIntervalMs;
+    }
+
+    public void setShadowRebuild(boolean shadowRebuild) {
+        this.shadowRebuild = shadowRebuild;
+    }
+
 
     public void setMaxDepth(int maxDepth) {}
     public void setTimeout(int timeout) {}
@@ -150,6 +312,9 @@ public class CrawlerConfig {
     public void setErrorLimit(int errorLimit) {}
     public void setPaginationMaxPages(int paginationMaxPages) {}
     public void setPoolSize(int poolSize) {}
+    public void setMaxInFlightPages(int maxInFlightPages) {}
+    public void setHostRequestsPerSecond(double hostRequestsPerSecond) {}
+    public void setHostBurst(int hostBurst) {}
     public void setQueueCapacity(int queueCapacity) {}
     public void setMaxConcurrentBrowsers(int maxConcurrentBrowsers) {}
     public void setIdleTimeout(long idleTimeout) {}
@@ -169,11 +334,28 @@ public class CrawlerConfig {
         System.out.println("Глубина обхода: " + getMaxDepth());
         System.out.println("Таймаут: " + getTimeout() + " мс");
         System.out.println("Макс. ссылок на странице: " + getMaxLinksPerPage());
-        System.out.println("Задержка: " + getRandomDelay() + " мс (динамическая)");
+        System.out.println("Задержка JS: " + getRandomDelay() + " мс (динамическая)");
+        System.out.println("Запросов к хосту в секунду: " + getHostRequestsPerSecond()
+                + " (burst " + getHostBurst() + ")");
+        System.out.println("robots.txt: " + (respectRobots ? "учитывается" : "игнорируется")
+                + ", sitemap: " + (useSitemaps ? "да" : "нет"));
         System.out.println("Лимит ошибок: " + getErrorLimit());
         System.out.println("Макс. страниц пагинации: " + getPaginationMaxPages());
+        System.out.println("Виртуальные потоки: " + (virtualThreads ? "да" : "нет"));
+        System.out.println("HTTP-клиент: " + (httpClientFetcher ? "java.net.http.HttpClient" : "Jsoup"));
         System.out.println("Размер пула потоков: " + getPoolSize());
-        System.out.println("Емкость очереди: " + getQueueCapacity());
+        System.out.println("Страниц в обработке (вирт. потоки): " + getMaxInFlightPages()
+                + (adaptiveConcurrency ? " (адаптивно, целевой p95 " + targetLatencyMs + " мс)" : ""));
+        System.out.println("Загрузок на все сайты: " + globalWorkers
+                + ", сайтов одновременно: " + maxConcurrentSites);
+        System.out.println("Конвейер: разбор " + analyzeThreads + " потоков, запись " + persistThreads
+                + " потоков, очередь этапа " + stageQueueCapacity);
+        System.out.println("Кэш id лемм: до " + lemmaCacheEntries + " записей"
+                + ", запись частот раз в " + frequencyFlushIntervalMs + " мс");
+        System.out.println("Полная переиндексация: " + (shadowRebuild ? "в теневую копию" : "с удалением данных"));
+        System.out.println("Емкость очереди в памяти: " + getQueueCapacity());
+        System.out.println("Каталог очереди: " + frontierDir
+                + " (продолжение прерванного обхода: " + (resumeInterrupted ? "да" : "нет") + ")");
         System.out.println("Параллельных браузеров: " + getMaxConcurrentBrowsers());
         System.out.println("Watchdog бездействие: " + getIdleTimeout() + " мс");
         System.out.println("Watchdog интервал: " + getCheckInterval() + " мс");
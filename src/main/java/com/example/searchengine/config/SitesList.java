@@ -109,6 +109,7 @@ public class SitesList {
     public static class SiteConfig {
         private String name;
         private String url;
+        private int weight = 1;
 
 
         public SiteConfig() {}
@@ -141,6 +142,20 @@ public class SitesList {
             this.url = url.trim();
         }
 
+        /**
+         * Вес сайта при делении общего бюджета загрузок между одновременно обходимыми сайтами.
+         */
+        public int getWeight() {
+            return weight;
+        }
+
+        public void setWeight(int weight) {
+            if (weight < 1) {
+                throw new IllegalArgumentException("Site weight must be positive");
+            }
+            this.weight = weight;
+        }
+
 
         public boolean isValid() {
             return name != null && !name.isEmpty() &&
@@ -150,7 +165,7 @@ public class SitesList {
 
         @Override
         public String toString() {
-            return String.format("SiteConfig{name='%s', url='%s'}", name, url);
+            return String.format("SiteConfig{name='%s', url='%s', weight=%d}", name, url, weight);
         }
     }
 
@@ -8,6 +8,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Configuration
 @EnableAsync
@@ -62,8 +63,10 @@ public class AsyncConfig {
         executor.setMaxPoolSize(20);
         executor.setQueueCapacity(200);
         executor.setThreadNamePrefix("search-");
+        // Отказ передаётся вызывающему: поиск пропускает сайт, а не ждёт задачу, которая не запустится
         executor.setRejectedExecutionHandler((r, e) -> {
             log.warn("Поисковый запрос отклонен из-за перегрузки системы");
+            throw new RejectedExecutionException("Пул поиска перегружен");
         });
         executor.initialize();
         return executor;
@@ -4,15 +4,25 @@ import com.example.searchengine.config.CrawlerConfig;
 import com.example.searchengine.dto.adminLogs.AdminAnalyticsDto;
 import com.example.searchengine.dto.adminLogs.TopQueryDto;
 import com.example.searchengine.dto.adminLogs.ZeroResultQueryDto;
+import com.example.searchengine.models.Site;
+import com.example.searchengine.models.Status;
 import com.example.searchengine.services.SearchLogService;
 import com.example.searchengine.services.AuthService;
 import com.example.searchengine.services.HealthService;
+import com.example.searchengine.services.LemmaService;
+import com.example.searchengine.services.SiteDataCleaner;
+import com.example.searchengine.services.SiteService;
+import com.example.searchengine.services.crawler.HostConcurrencyController;
+import com.example.searchengine.services.crawler.IndexingPipeline;
+import com.example.searchengine.services.crawler.SeleniumFetcher;
 import org.springframework.security.core.session.SessionRegistry;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/api/admin")
@@ -23,17 +33,35 @@ public class AdminApiController {
     private final SessionRegistry sessionRegistry;
     private final HealthService healthService;
     private final AuthService authService;
+    private final HostConcurrencyController concurrencyController;
+    private final IndexingPipeline indexingPipeline;
+    private final SiteService siteService;
+    private final LemmaService lemmaService;
+    private final SiteDataCleaner siteDataCleaner;
+    private final SeleniumFetcher seleniumFetcher;
 
     public AdminApiController(CrawlerConfig crawlerConfig,
                               SearchLogService searchLogService,
                               SessionRegistry sessionRegistry,
                               HealthService healthService,
-                              AuthService authService) {
+                              AuthService authService,
+                              HostConcurrencyController concurrencyController,
+                              IndexingPipeline indexingPipeline,
+                              SiteService siteService,
+                              LemmaService lemmaService,
+                              SiteDataCleaner siteDataCleaner,
+                              SeleniumFetcher seleniumFetcher) {
         this.crawlerConfig = crawlerConfig;
         this.searchLogService = searchLogService;
         this.sessionRegistry = sessionRegistry;
         this.healthService = healthService;
         this.authService = authService;
+        this.concurrencyController = concurrencyController;
+        this.indexingPipeline = indexingPipeline;
+        this.siteService = siteService;
+        this.lemmaService = lemmaService;
+        this.siteDataCleaner = siteDataCleaner;
+        this.seleniumFetcher = seleniumFetcher;
     }
 
     @GetMapping("/layout")
@@ -88,11 +116,60 @@ public class AdminApiController {
         return crawlerConfig.getCurrentMode();
     }
 
+    @GetMapping("/mode/limits")
+    @ResponseBody
+    public Map<String, Object> getConcurrencyLimits() {
+        Map<String, Object> limits = new LinkedHashMap<>();
+        limits.put("currentMode", crawlerConfig.getCurrentMode());
+        limits.put("adaptive", crawlerConfig.isAdaptiveConcurrency());
+        limits.put("targetLatencyMs", crawlerConfig.getTargetLatencyMs());
+        limits.put("hosts", concurrencyController.getStats());
+        return limits;
+    }
+
+    @GetMapping("/mode/pipeline")
+    @ResponseBody
+    public Map<String, Object> getPipelineStats() {
+        Map<String, Object> pipeline = new LinkedHashMap<>();
+        pipeline.put("fetchInFlight", concurrencyController.getStats().stream()
+                .mapToInt(HostConcurrencyController.HostLimitStats::inFlight)
+                .sum());
+        pipeline.put("stages", indexingPipeline.getStats());
+        return pipeline;
+    }
+
+    @GetMapping("/sites/wipes")
+    @ResponseBody
+    public List<SiteDataCleaner.WipeProgress> getSiteWipes() {
+        return siteDataCleaner.getProgress();
+    }
+
+    @PostMapping("/lemmas/reconcile")
+    @ResponseBody
+    public Map<String, Object> reconcileLemmaFrequencies(@RequestParam long siteId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Site site = siteService.findById(siteId).orElse(null);
+        if (site == null) {
+            result.put("result", false);
+            result.put("error", "Сайт не найден");
+            return result;
+        }
+        if (site.getStatus() == Status.INDEXING) {
+            result.put("result", false);
+            result.put("error", "Сайт индексируется");
+            return result;
+        }
+        result.put("result", true);
+        result.put("removedLemmas", lemmaService.reconcileFrequencies(site));
+        return result;
+    }
+
     @PostMapping("/mode/single")
     @ResponseBody
     public String setSingleMode() {
         System.out.println("🔥 setSingleMode() вызван");
         CrawlerConfig.setSingleSiteMode();
+        seleniumFetcher.updateConcurrencyLimit();
         System.out.println("✅ Режим переключен на ОДИН сайт");
         return "Режим переключен на ОДИН сайт";
     }
@@ -102,6 +179,7 @@ public class AdminApiController {
     public String setMultiMode() {
         System.out.println("🔥 setMultiMode() вызван");
         CrawlerConfig.setMultiSiteMode();
+        seleniumFetcher.updateConcurrencyLimit();
         System.out.println("✅ Режим переключен на НЕСКОЛЬКО сайтов");
         return "Режим переключен на НЕСКОЛЬКО сайтов";
     }
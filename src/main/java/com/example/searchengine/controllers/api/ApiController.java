@@ -43,9 +43,9 @@ public class ApiController {
 
 
     @GetMapping("/startIndexing")
-    public ResponseEntity<?> startIndexing() {
+    public ResponseEntity<?> startIndexing(@RequestParam(defaultValue = "false") boolean incremental) {
         try {
-            indexingService.startFullIndexing();
+            indexingService.startFullIndexing(incremental);
             return ResponseEntity.ok(Map.of("result", true));
         } catch (IllegalStateException e) {
             logger.error("Ошибка запуска индексации: {}", e.getMessage());
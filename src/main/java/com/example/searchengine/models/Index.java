@@ -4,7 +4,10 @@ import jakarta.persistence.*;
 import java.util.Objects;
 
 @Entity
-@Table(name = "`index`")
+@Table(
+        name = "`index`",
+        uniqueConstraints = @UniqueConstraint(name = "uk_index_page_lemma", columnNames = {"page_id", "lemma_id"})
+)
 public class Index {
 
     @Id
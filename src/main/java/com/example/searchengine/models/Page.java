@@ -24,9 +24,20 @@ public class Page {
     @NotNull
     private int code;
 
-    @Column(columnDefinition = "MEDIUMTEXT NOT NULL")
-    @NotNull
-    private String content;
+    @Column(name = "etag")
+    private String etag;
+
+    @Column(name = "last_modified", length = 64)
+    private String lastModified;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(columnDefinition = "TEXT")
+    private String title;
+
+    @Column(name = "plain_text", columnDefinition = "MEDIUMTEXT")
+    private String plainText;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "site_id", nullable = false)
@@ -38,10 +49,12 @@ public class Page {
 
     public Page() {}
 
-    public Page(String path, int code, String content, Site site) {
+    /**
+     * HTML страницы хранится отдельно, см. {@link com.example.searchengine.repositories.PageContentRepository}.
+     */
+    public Page(String path, int code, Site site) {
         this.path = path;
         this.code = code;
-        this.content = content;
         this.site = site;
     }
 
@@ -69,12 +82,44 @@ public class Page {
         this.code = code;
     }
 
-    public String getContent() {
-        return content;
+    public String getEtag() {
+        return etag;
+    }
+
+    public void setEtag(String etag) {
+        this.etag = etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public void setLastModified(String lastModified) {
+        this.lastModified = lastModified;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getPlainText() {
+        return plainText;
     }
 
-    public void setContent(String content) {
-        this.content = content;
+    public void setPlainText(String plainText) {
+        this.plainText = plainText;
     }
 
     public Site getSite() {
@@ -36,6 +36,11 @@ public class Site {
     @Column(columnDefinition = "TEXT")
     private String lastError;
 
+    @NotNull
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, columnDefinition = "ENUM('LIVE', 'SHADOW', 'RETIRED')")
+    private SiteGeneration generation = SiteGeneration.LIVE;
+
     @OneToMany(mappedBy = "site", cascade = CascadeType.ALL, orphanRemoval = true)
     private Set<Page> pages = new HashSet<>();
 
@@ -120,6 +125,14 @@ public class Site {
         this.lastError = lastError;
     }
 
+    public SiteGeneration getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(SiteGeneration generation) {
+        this.generation = generation;
+    }
+
     public Set<Page> getPages() {
         return pages;
     }
@@ -0,0 +1,12 @@
+package com.example.searchengine.models;
+
+/**
+ * Поколение данных сайта. Поиск и статистика видят только {@code LIVE};
+ * {@code SHADOW} — копия, в которую идёт пересборка, {@code RETIRED} — заменённое поколение,
+ * ожидающее удаления.
+ */
+public enum SiteGeneration {
+    LIVE,
+    SHADOW,
+    RETIRED
+}
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +23,29 @@ public interface IndexRepository extends JpaRepository<Index, Long> {
 
     List<Index> findByLemmaInAndPage_Site(List<Lemma> lemmas, Site site);
 
+    /**
+     * Сумма рангов страницы по лемме запроса.
+     */
+    interface PageRelevance {
+        Long getPageId();
+
+        Double getRelevance();
+    }
+
+    /**
+     * Страницы, на которых есть все указанные леммы, с суммой их рангов — по убыванию суммы.
+     * Пересечение и подсчёт выполняются одним запросом по индексу (lemma_id, page_id, rank).
+     * Леммы принадлежат одному сайту, поэтому отбор по сайту не нужен.
+     */
+    @Query(value = "SELECT i.page_id AS pageId, SUM(i.`rank`) AS relevance FROM `index` i " +
+            "WHERE i.lemma_id IN (:lemmaIds) " +
+            "GROUP BY i.page_id " +
+            "HAVING COUNT(DISTINCT i.lemma_id) = :lemmaCount " +
+            "ORDER BY relevance DESC, i.page_id",
+            nativeQuery = true)
+    List<PageRelevance> findPagesWithAllLemmas(@Param("lemmaIds") Collection<Long> lemmaIds,
+                                               @Param("lemmaCount") long lemmaCount);
+
     Optional<Index> findByPageAndLemma(Page page, Lemma lemma);
 
     void deleteByPage(Page page);
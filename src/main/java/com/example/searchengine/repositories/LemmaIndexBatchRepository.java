@@ -0,0 +1,187 @@
+package com.example.searchengine.repositories;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пакетная запись лемм и индекса страницы через JDBC: вместо нескольких запросов на каждую лемму —
+ * один многострочный INSERT на пачку лемм, один SELECT их id и один INSERT строк индекса.
+ * Частоты лемм меняются отдельно, пакетами из {@link com.example.searchengine.services.LemmaFrequencyBuffer}.
+ */
+@Repository
+public class LemmaIndexBatchRepository {
+
+    private static final int CHUNK_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LemmaIndexBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+
+    /**
+     * Добавляет недостающие леммы сайта с нулевой частотой; существующие строки не изменяются.
+     * Частоты пишет {@link #applyFrequencyDeltas}.
+     */
+    public void insertMissingLemmas(long siteId, Collection<String> lemmas) {
+        for (List<String> chunk : chunks(lemmas)) {
+            String sql = "INSERT IGNORE INTO lemma (lemma, frequency, site_id) VALUES "
+                    + String.join(", ", Collections.nCopies(chunk.size(), "(?, 0, ?)"));
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i * 2] = chunk.get(i);
+                args[i * 2 + 1] = siteId;
+            }
+            jdbcTemplate.update(sql, args);
+        }
+    }
+
+
+    /**
+     * @return id лемм сайта по тексту леммы; леммы, которых нет в БД, в результат не попадают
+     */
+    public Map<String, Long> findLemmaIds(long siteId, Collection<String> lemmas) {
+        Map<String, Long> ids = new HashMap<>(lemmas.size() * 2);
+        for (List<String> chunk : chunks(lemmas)) {
+            String sql = "SELECT id, lemma FROM lemma WHERE site_id = ? AND lemma IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            Object[] args = new Object[chunk.size() + 1];
+            args[0] = siteId;
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i + 1] = chunk.get(i);
+            }
+            jdbcTemplate.query(sql, rs -> {
+                ids.put(rs.getString("lemma"), rs.getLong("id"));
+            }, args);
+        }
+        return ids;
+    }
+
+
+    /**
+     * Id одной леммы. Нужен, когда сравнение строк в MySQL (например, «е» и «ё»)
+     * свело две леммы страницы к одной записи и точного совпадения в {@link #findLemmaIds} нет.
+     */
+    public Long findLemmaId(long siteId, String lemma) {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT id FROM lemma WHERE site_id = ? AND lemma = ?", Long.class, siteId, lemma);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+
+    /**
+     * Простая вставка без слияния: ранги уже сложены по id леммы, а повторную строку
+     * отклонит уникальный ключ (page_id, lemma_id).
+     */
+    public void insertIndexes(long pageId, Map<Long, Float> ranksByLemmaId) {
+        List<Map.Entry<Long, Float>> entries = new ArrayList<>(ranksByLemmaId.entrySet());
+        for (List<Map.Entry<Long, Float>> chunk : chunks(entries)) {
+            String sql = "INSERT INTO `index` (page_id, lemma_id, `rank`) VALUES "
+                    + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?, ?)"));
+            Object[] args = new Object[chunk.size() * 3];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i * 3] = pageId;
+                args[i * 3 + 1] = chunk.get(i).getKey();
+                args[i * 3 + 2] = chunk.get(i).getValue();
+            }
+            jdbcTemplate.update(sql, args);
+        }
+    }
+
+
+    /**
+     * Удаляет строки индекса страницы.
+     *
+     * @return id лемм, которые были на странице
+     */
+    public List<Long> deletePageIndexes(long pageId) {
+        List<Long> lemmaIds = jdbcTemplate.queryForList(
+                "SELECT lemma_id FROM `index` WHERE page_id = ?", Long.class, pageId);
+        jdbcTemplate.update("DELETE FROM `index` WHERE page_id = ?", pageId);
+        return lemmaIds;
+    }
+
+
+    /**
+     * Прибавляет к частотам лемм накопленные изменения одним UPDATE на пачку.
+     * Строки обновляются в порядке id, чтобы параллельные записи не блокировали друг друга.
+     */
+    public void applyFrequencyDeltas(Map<Long, Long> deltasByLemmaId) {
+        List<Long> ids = deltasByLemmaId.keySet().stream().sorted().toList();
+        for (List<Long> chunk : chunks(ids)) {
+            String sql = "UPDATE lemma SET frequency = frequency + CASE id "
+                    + String.join(" ", Collections.nCopies(chunk.size(), "WHEN ? THEN ?"))
+                    + " END WHERE id IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+            Object[] args = new Object[chunk.size() * 3];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[i * 2] = chunk.get(i);
+                args[i * 2 + 1] = deltasByLemmaId.get(chunk.get(i));
+                args[chunk.size() * 2 + i] = chunk.get(i);
+            }
+            jdbcTemplate.update(sql, args);
+        }
+    }
+
+
+    /**
+     * Выбирает из указанных лемм те, у которых не осталось ни частоты, ни строк индекса, — кандидатов на удаление.
+     */
+    public List<Long> findUnusedLemmas(Collection<Long> lemmaIds) {
+        List<Long> unused = new ArrayList<>();
+        for (List<Long> chunk : chunks(lemmaIds)) {
+            String in = String.join(", ", Collections.nCopies(chunk.size(), "?"));
+            unused.addAll(jdbcTemplate.queryForList("SELECT id FROM lemma l WHERE l.id IN (" + in + ")"
+                    + " AND l.frequency <= 0 AND NOT EXISTS (SELECT 1 FROM `index` i WHERE i.lemma_id = l.id)",
+                    Long.class, chunk.toArray()));
+        }
+        return unused;
+    }
+
+
+    /**
+     * Удаляет кандидатов из {@link #findUnusedLemmas}, условие проверяется заново:
+     * лемма, на которую за это время сослалась новая страница, остаётся.
+     *
+     * @return сколько лемм удалено
+     */
+    public int deleteUnusedLemmas(Collection<Long> candidateIds) {
+        int deleted = 0;
+        for (List<Long> chunk : chunks(candidateIds)) {
+            deleted += jdbcTemplate.update("DELETE FROM lemma WHERE id IN ("
+                    + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") AND frequency <= 0"
+                    + " AND NOT EXISTS (SELECT 1 FROM `index` i WHERE i.lemma_id = lemma.id)", chunk.toArray());
+        }
+        return deleted;
+    }
+
+
+    /**
+     * Пересчитывает частоты лемм сайта по таблице индекса и удаляет леммы без страниц.
+     *
+     * @return сколько лемм удалено
+     */
+    public int reconcileFrequencies(long siteId) {
+        jdbcTemplate.update("UPDATE lemma l LEFT JOIN (SELECT i.lemma_id, COUNT(*) AS cnt FROM `index` i "
+                + "JOIN lemma s ON s.id = i.lemma_id WHERE s.site_id = ? GROUP BY i.lemma_id) c "
+                + "ON c.lemma_id = l.id SET l.frequency = COALESCE(c.cnt, 0) WHERE l.site_id = ?", siteId, siteId);
+        return jdbcTemplate.update("DELETE FROM lemma WHERE site_id = ? AND frequency = 0", siteId);
+    }
+
+
+    private static <T> List<List<T>> chunks(Collection<T> items) {
+        List<T> list = items instanceof List<T> l ? l : new ArrayList<>(items);
+        List<List<T>> chunks = new ArrayList<>((list.size() + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        for (int from = 0; from < list.size(); from += CHUNK_SIZE) {
+            chunks.add(list.subList(from, Math.min(list.size(), from + CHUNK_SIZE)));
+        }
+        return chunks;
+    }
+}
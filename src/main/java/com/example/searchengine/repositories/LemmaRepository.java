@@ -2,6 +2,7 @@ package com.example.searchengine.repositories;
 
 import com.example.searchengine.models.Lemma;
 import com.example.searchengine.models.Site;
+import com.example.searchengine.models.SiteGeneration;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -25,6 +26,8 @@ public interface LemmaRepository extends JpaRepository<Lemma, Long> {
 
     long countBySite(Site site);
 
+    long countBySite_Generation(SiteGeneration generation);
+
     @Modifying
     @Transactional
     @Query(value = "INSERT INTO lemma (lemma, frequency, site_id) " +
@@ -0,0 +1,39 @@
+package com.example.searchengine.repositories;
+
+import com.example.searchengine.utils.ContentCodec;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * HTML страниц в отдельной таблице {@code page_content}, сжатый {@link ContentCodec}.
+ * Сущность {@link com.example.searchengine.models.Page} его не содержит, поэтому поиск и статистика
+ * не тянут HTML из БД; он читается только там, где действительно нужен.
+ */
+@Repository
+public class PageContentRepository {
+
+    private static final ContentCodec DEFAULT_CODEC = ContentCodec.DEFLATE;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PageContentRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+
+    public void save(long pageId, String content) {
+        jdbcTemplate.update("INSERT INTO page_content (page_id, codec, data) VALUES (?, ?, ?) "
+                        + "ON DUPLICATE KEY UPDATE codec = VALUES(codec), data = VALUES(data)",
+                pageId, DEFAULT_CODEC.getId(), DEFAULT_CODEC.encode(content));
+    }
+
+
+    public Optional<String> findByPageId(long pageId) {
+        List<String> contents = jdbcTemplate.query("SELECT codec, data FROM page_content WHERE page_id = ?",
+                (rs, rowNum) -> ContentCodec.of(rs.getInt("codec")).decode(rs.getBytes("data")), pageId);
+        return contents.stream().findFirst();
+    }
+}
@@ -2,11 +2,15 @@ package com.example.searchengine.repositories;
 
 import com.example.searchengine.models.Page;
 import com.example.searchengine.models.Site;
+import com.example.searchengine.models.SiteGeneration;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface PageRepository extends JpaRepository<Page, Long> {
@@ -17,7 +21,12 @@ public interface PageRepository extends JpaRepository<Page, Long> {
 
     boolean existsByPathAndSite(String path, Site site);
 
+    @Query("SELECT p.path FROM Page p WHERE p.site = :site")
+    Stream<String> streamPathsBySite(@Param("site") Site site);
+
     void deleteBySite(Site site);
 
     long countBySite(Site site);
+
+    long countBySite_Generation(SiteGeneration generation);
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.example.searchengine.repositories;
 
 import com.example.searchengine.models.Site;
+import com.example.searchengine.models.SiteGeneration;
 import com.example.searchengine.models.Status;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
@@ -20,4 +21,12 @@ public interface SiteRepository extends JpaRepository<Site, Long> {
     boolean existsByStatus(Status status);
 
     long countByStatus(Status status);
+
+    Optional<Site> findByUrlAndGeneration(String url, SiteGeneration generation);
+
+    List<Site> findByGeneration(SiteGeneration generation);
+
+    long countByGeneration(SiteGeneration generation);
+
+    long countByStatusAndGeneration(Status status, SiteGeneration generation);
 }
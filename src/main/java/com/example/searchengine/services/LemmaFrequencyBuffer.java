@@ -0,0 +1,170 @@
+package com.example.searchengine.services;
+
+import com.example.searchengine.config.CrawlerConfig;
+import com.example.searchengine.repositories.LemmaIndexBatchRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Отложенная запись частот лемм. Изменения частоты копятся в памяти в счётчиках {@link LongAdder}
+ * по сайтам и раз в {@code crawler.frequency-flush-interval-ms} пишутся в БД одним пакетным UPDATE,
+ * поэтому потоки записи страниц не борются за блокировку строк частых лемм.
+ * Счётчики сайта сбрасываются и освобождаются по окончании его обхода.
+ */
+@Component
+public class LemmaFrequencyBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LemmaFrequencyBuffer.class);
+
+    private final LemmaIndexBatchRepository batchRepository;
+    private final LemmaIdCache lemmaIdCache;
+
+    private final Map<Long, Map<Long, LongAdder>> deltas = new ConcurrentHashMap<>();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "lemma-frequency-flush");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public LemmaFrequencyBuffer(CrawlerConfig crawlerConfig, LemmaIndexBatchRepository batchRepository,
+                                LemmaIdCache lemmaIdCache) {
+        this.batchRepository = batchRepository;
+        this.lemmaIdCache = lemmaIdCache;
+        long interval = crawlerConfig.getFrequencyFlushIntervalMs();
+        scheduler.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+
+    public void add(long siteId, Collection<Long> lemmaIds, int delta) {
+        Map<Long, LongAdder> site = deltas.computeIfAbsent(siteId, k -> new ConcurrentHashMap<>());
+        for (Long id : lemmaIds) {
+            site.computeIfAbsent(id, k -> new LongAdder()).add(delta);
+        }
+    }
+
+
+    /**
+     * Записывает накопленные изменения сайта и освобождает его счётчики.
+     * Вызывается, когда запись страниц сайта уже закончена.
+     */
+    public void flushAndRelease(long siteId) {
+        synchronized (flushLock) {
+            Map<Long, LongAdder> site = deltas.remove(siteId);
+            if (site == null) {
+                return;
+            }
+            try {
+                flush(siteId, site);
+            } catch (RuntimeException e) {
+                deltas.putIfAbsent(siteId, site);
+                logger.error("❌ Ошибка записи частот лемм сайта {}: {}", siteId, e.getMessage());
+            }
+        }
+    }
+
+
+    /**
+     * Отбрасывает накопленные изменения сайта — например, когда его леммы удалены целиком.
+     */
+    public void discard(long siteId) {
+        synchronized (flushLock) {
+            deltas.remove(siteId);
+        }
+    }
+
+
+    /**
+     * Пересчитывает частоты лемм сайта по таблице индекса и удаляет леммы без страниц.
+     * Накопленные изменения отбрасываются: пересчёт их уже учитывает.
+     * Запускать, когда сайт не индексируется.
+     *
+     * @return сколько лемм удалено
+     */
+    public int reconcile(long siteId) {
+        synchronized (flushLock) {
+            Map<Long, LongAdder> site = deltas.get(siteId);
+            if (site != null) {
+                site.values().forEach(LongAdder::reset);
+            }
+            int removed = batchRepository.reconcileFrequencies(siteId);
+            lemmaIdCache.evictSite(siteId);
+            logger.info("🔁 Частоты лемм сайта {} пересчитаны, удалено лемм без страниц: {}", siteId, removed);
+            return removed;
+        }
+    }
+
+
+    private void flushAll() {
+        synchronized (flushLock) {
+            deltas.forEach((siteId, site) -> {
+                try {
+                    flush(siteId, site);
+                } catch (Exception e) {
+                    logger.error("❌ Ошибка записи частот лемм сайта {}: {}", siteId, e.getMessage());
+                }
+            });
+        }
+    }
+
+
+    /**
+     * Счётчики не удаляются из карты сайта: поток записи может держать ссылку на счётчик,
+     * и прибавленное к удалённому счётчику потерялось бы.
+     */
+    private void flush(long siteId, Map<Long, LongAdder> site) {
+        Map<Long, Long> changes = new TreeMap<>();
+        site.forEach((id, adder) -> {
+            long delta = adder.sumThenReset();
+            if (delta != 0) {
+                changes.put(id, delta);
+            }
+        });
+        if (changes.isEmpty()) {
+            return;
+        }
+        try {
+            batchRepository.applyFrequencyDeltas(changes);
+        } catch (RuntimeException e) {
+            changes.forEach((id, delta) -> site.computeIfAbsent(id, k -> new LongAdder()).add(delta));
+            throw e;
+        }
+        List<Long> decremented = new ArrayList<>();
+        changes.forEach((id, delta) -> {
+            if (delta < 0) {
+                decremented.add(id);
+            }
+        });
+        if (!decremented.isEmpty()) {
+            List<Long> unused = batchRepository.findUnusedLemmas(decremented);
+            if (!unused.isEmpty()) {
+                // Id убираются из кэша до удаления: иначе запись страницы успела бы взять из кэша id
+                // уже удалённой леммы. Повторно — после, на случай записи в кэш между выборкой и удалением
+                lemmaIdCache.evictIds(siteId, unused);
+                batchRepository.deleteUnusedLemmas(unused);
+                lemmaIdCache.evictIds(siteId, unused);
+            }
+        }
+        logger.debug("Сайт {}: записаны частоты {} лемм", siteId, changes.size());
+    }
+
+
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
+        flushAll();
+    }
+}
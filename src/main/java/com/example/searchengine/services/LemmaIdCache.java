@@ -0,0 +1,225 @@
+package com.example.searchengine.services;
+
+import com.example.searchengine.config.CrawlerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Кэш «текст леммы → id» по сайтам, чтобы при индексации не выбирать из БД id уже встречавшихся лемм.
+ * Для каждого сайта — таблица с открытой адресацией на массивах {@code String[]}/{@code long[]}
+ * без объектов-обёрток. Общее число записей ограничено {@code crawler.lemma-cache-entries}:
+ * при заполнении новые леммы просто не кэшируются.
+ */
+@Component
+public class LemmaIdCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(LemmaIdCache.class);
+    private static final long MISSING = -1;
+
+    private final long maxEntries;
+    private final Map<Long, SiteLemmaIds> sites = new ConcurrentHashMap<>();
+    private final AtomicLong totalEntries = new AtomicLong();
+    private final AtomicBoolean fullLogged = new AtomicBoolean();
+
+    public LemmaIdCache(CrawlerConfig crawlerConfig) {
+        this.maxEntries = crawlerConfig.getLemmaCacheEntries();
+    }
+
+
+    /**
+     * @return id леммы или {@code null}, если её нет в кэше
+     */
+    public Long get(long siteId, String lemma) {
+        SiteLemmaIds ids = sites.get(siteId);
+        if (ids == null) {
+            return null;
+        }
+        long id = ids.get(lemma);
+        return id == MISSING ? null : id;
+    }
+
+
+    public void put(long siteId, String lemma, long id) {
+        if (totalEntries.get() >= maxEntries) {
+            if (fullLogged.compareAndSet(false, true)) {
+                logger.info("Кэш id лемм заполнен ({} записей), новые леммы не кэшируются", maxEntries);
+            }
+            return;
+        }
+        if (sites.computeIfAbsent(siteId, k -> new SiteLemmaIds()).put(lemma, id)) {
+            totalEntries.incrementAndGet();
+        }
+    }
+
+
+    public void putAll(long siteId, Map<String, Long> ids) {
+        ids.forEach((lemma, id) -> put(siteId, lemma, id));
+    }
+
+
+    /**
+     * Убирает записи с удалёнными id. Проверяются все записи сайта, потому что из-за сравнения
+     * строк в MySQL на один id могут ссылаться разные написания леммы.
+     */
+    public void evictIds(long siteId, Collection<Long> deletedIds) {
+        SiteLemmaIds ids = sites.get(siteId);
+        if (ids == null || deletedIds.isEmpty()) {
+            return;
+        }
+        int removed = ids.removeIds(deletedIds instanceof Set<Long> set ? set : Set.copyOf(deletedIds));
+        totalEntries.addAndGet(-removed);
+    }
+
+
+    public void evictSite(long siteId) {
+        SiteLemmaIds ids = sites.remove(siteId);
+        if (ids != null) {
+            totalEntries.addAndGet(-ids.size());
+            fullLogged.set(false);
+            logger.debug("Кэш id лемм сайта {} очищен", siteId);
+        }
+    }
+
+
+    public long size() {
+        return totalEntries.get();
+    }
+
+
+    /**
+     * Чтение идёт без блокировки — оптимистичным чтением {@link StampedLock}: потоки записи страниц
+     * одного сайта не ждут друг друга на каждой лемме. Изменения таблицы — под блокировкой записи.
+     */
+    private static final class SiteLemmaIds {
+        private final StampedLock lock = new StampedLock();
+        private String[] keys = new String[1024];
+        private long[] values = new long[1024];
+        private int size;
+
+        long get(String lemma) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                String[] k = keys;
+                long[] v = values;
+                // Массивы разных поколений — таблицу как раз перестраивают, проверка ниже не пройдёт
+                long id = k.length == v.length ? find(k, v, lemma) : MISSING;
+                if (lock.validate(stamp)) {
+                    return id;
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return find(keys, values, lemma);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * @return {@code true}, если добавлена новая запись
+         */
+        boolean put(String lemma, long id) {
+            long stamp = lock.writeLock();
+            try {
+                if ((size + 1) * 4 > keys.length * 3) {
+                    resize(keys.length * 2);
+                }
+                int mask = keys.length - 1;
+                int i = lemma.hashCode() & mask;
+                for (; keys[i] != null; i = (i + 1) & mask) {
+                    if (keys[i].equals(lemma)) {
+                        values[i] = id;
+                        return false;
+                    }
+                }
+                values[i] = id;
+                keys[i] = lemma;
+                size++;
+                return true;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int removeIds(Set<Long> ids) {
+            long stamp = lock.writeLock();
+            try {
+                String[] oldKeys = keys;
+                long[] oldValues = values;
+                String[] newKeys = new String[oldKeys.length];
+                long[] newValues = new long[oldValues.length];
+                int before = size;
+                size = 0;
+                for (int i = 0; i < oldKeys.length; i++) {
+                    if (oldKeys[i] != null && !ids.contains(oldValues[i])) {
+                        insert(newKeys, newValues, oldKeys[i], oldValues[i]);
+                    }
+                }
+                keys = newKeys;
+                values = newValues;
+                return before - size;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        /**
+         * Таблица заполнена не больше чем на три четверти, поэтому поиск всегда доходит до пустой ячейки,
+         * даже если при оптимистичном чтении массив виден частично заполненным.
+         */
+        private static long find(String[] keys, long[] values, String lemma) {
+            int mask = keys.length - 1;
+            for (int i = lemma.hashCode() & mask; ; i = (i + 1) & mask) {
+                String key = keys[i];
+                if (key == null) {
+                    return MISSING;
+                }
+                if (key.equals(lemma)) {
+                    return values[i];
+                }
+            }
+        }
+
+        private void resize(int capacity) {
+            String[] newKeys = new String[capacity];
+            long[] newValues = new long[capacity];
+            size = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) {
+                    insert(newKeys, newValues, keys[i], values[i]);
+                }
+            }
+            keys = newKeys;
+            values = newValues;
+        }
+
+        private void insert(String[] keys, long[] values, String lemma, long id) {
+            int mask = keys.length - 1;
+            int i = lemma.hashCode() & mask;
+            while (keys[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = lemma;
+            values[i] = id;
+            size++;
+        }
+    }
+}
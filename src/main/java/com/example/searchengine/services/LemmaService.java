@@ -1,18 +1,23 @@
 package com.example.searchengine.services;
 
-import com.example.searchengine.models.Index;
 import com.example.searchengine.models.Lemma;
 import com.example.searchengine.models.Page;
 import com.example.searchengine.models.Site;
+import com.example.searchengine.models.SiteGeneration;
+import com.example.searchengine.repositories.LemmaIndexBatchRepository;
 import com.example.searchengine.repositories.LemmaRepository;
-import com.example.searchengine.services.indexing.IndexService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -25,7 +30,13 @@ public class LemmaService {
     private LemmaRepository lemmaRepository;
 
     @Autowired
-    private IndexService indexService;
+    private LemmaIndexBatchRepository batchRepository;
+
+    @Autowired
+    private LemmaIdCache lemmaIdCache;
+
+    @Autowired
+    private LemmaFrequencyBuffer frequencyBuffer;
 
 
     @Transactional
@@ -36,6 +47,97 @@ public class LemmaService {
     }
 
 
+    /**
+     * Записывает все леммы страницы и её индекс в одной транзакции:
+     * вставка недостающих лемм и строк индекса — пачками, а не по запросу на лемму.
+     * Id берутся из {@link LemmaIdCache}; из БД выбираются только леммы, которых в кэше нет.
+     * Частоты увеличиваются после фиксации через {@link LemmaFrequencyBuffer}.
+     *
+     * @param ranks число вхождений каждой леммы на странице
+     * @return сколько строк индекса записано
+     */
+    @Transactional
+    public int saveAllForPage(Page page, Map<String, Integer> ranks) {
+        if (ranks.isEmpty()) {
+            return 0;
+        }
+        long siteId = page.getSite().getId();
+        List<String> lemmas = ranks.keySet().stream().sorted().toList();
+        // Одинаковый порядок строк у параллельных записей снижает риск взаимных блокировок InnoDB
+        batchRepository.insertMissingLemmas(siteId, lemmas);
+        // Кэш читается после вставки: она ждёт удаления леммы другой транзакцией, а удаление — её фиксации
+        Map<String, Long> ids = new HashMap<>(ranks.size() * 2);
+        List<String> missing = new ArrayList<>();
+        for (String lemma : lemmas) {
+            Long id = lemmaIdCache.get(siteId, lemma);
+            if (id != null) {
+                ids.put(lemma, id);
+            } else {
+                missing.add(lemma);
+            }
+        }
+        Map<String, Long> loaded = new HashMap<>();
+        if (!missing.isEmpty()) {
+            loaded.putAll(batchRepository.findLemmaIds(siteId, missing));
+            for (String lemma : missing) {
+                if (!loaded.containsKey(lemma)) {
+                    Long id = batchRepository.findLemmaId(siteId, lemma);
+                    if (id != null) {
+                        loaded.put(lemma, id);
+                    }
+                }
+            }
+            ids.putAll(loaded);
+        }
+        Map<Long, Float> ranksByLemmaId = new HashMap<>(ranks.size() * 2);
+        ranks.forEach((lemma, rank) -> {
+            Long id = ids.get(lemma);
+            if (id == null) {
+                logger.error("Лемма не найдена после сохранения: {}", lemma);
+                return;
+            }
+            ranksByLemmaId.merge(id, rank.floatValue(), Float::sum);
+        });
+        batchRepository.insertIndexes(page.getId(), ranksByLemmaId);
+        afterCommit(() -> {
+            lemmaIdCache.putAll(siteId, loaded);
+            frequencyBuffer.add(siteId, ranksByLemmaId.keySet(), 1);
+        });
+        logger.debug("Страница {}: сохранено {} лемм", page.getPath(), ranksByLemmaId.size());
+        return ranksByLemmaId.size();
+    }
+
+
+    /**
+     * Убирает страницу из индекса: удаляет строки индекса, а частоты её лемм уменьшаются
+     * после фиксации через {@link LemmaFrequencyBuffer}. Леммы без страниц удаляет он же.
+     */
+    @Transactional
+    public void deleteAllForPage(Page page) {
+        long siteId = page.getSite().getId();
+        List<Long> lemmaIds = batchRepository.deletePageIndexes(page.getId());
+        afterCommit(() -> frequencyBuffer.add(siteId, lemmaIds, -1));
+    }
+
+
+    /**
+     * Записывает накопленные частоты лемм сайта, например по окончании его обхода.
+     */
+    public void flushFrequencies(Site site) {
+        frequencyBuffer.flushAndRelease(site.getId());
+    }
+
+
+    /**
+     * Пересчитывает частоты лемм сайта по индексу; запускать, когда сайт не индексируется.
+     *
+     * @return сколько лемм без страниц удалено
+     */
+    public int reconcileFrequencies(Site site) {
+        return frequencyBuffer.reconcile(site.getId());
+    }
+
+
     @Transactional
     public void decrementFrequency(Lemma lemma) {
         Lemma freshLemma = lemmaRepository.findById(lemma.getId())
@@ -46,15 +148,7 @@ public class LemmaService {
             lemmaRepository.save(freshLemma);
         } else {
             lemmaRepository.delete(freshLemma);
-        }
-    }
-
-
-    @Transactional
-    public void decrementAllForPage(Page page) {
-        List<Index> indexes = indexService.findByPage(page);
-        for (Index index : indexes) {
-            decrementFrequency(index.getLemma());
+            lemmaIdCache.evictIds(freshLemma.getSite().getId(), List.of(freshLemma.getId()));
         }
     }
 
@@ -80,6 +174,8 @@ public class LemmaService {
     @Transactional
     public void deleteAllBySite(Site site) {
         lemmaRepository.deleteBySite(site);
+        frequencyBuffer.discard(site.getId());
+        lemmaIdCache.evictSite(site.getId());
     }
 
 
@@ -91,6 +187,24 @@ public class LemmaService {
 
     @Transactional(readOnly = true)
     public long getTotalLemmas() {
-        return lemmaRepository.count();
+        return lemmaRepository.countBySite_Generation(SiteGeneration.LIVE);
+    }
+
+
+    /**
+     * Новые id попадают в кэш только после фиксации транзакции, иначе после отката
+     * в кэше остались бы id несуществующих лемм.
+     */
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 }
\ No newline at end of file
@@ -2,23 +2,34 @@ package com.example.searchengine.services;
 
 import com.example.searchengine.models.Page;
 import com.example.searchengine.models.Site;
+import com.example.searchengine.models.SiteGeneration;
+import com.example.searchengine.repositories.PageContentRepository;
 import com.example.searchengine.repositories.PageRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class PageService {
 
     private static final Logger logger = LoggerFactory.getLogger(PageService.class);
     private final PageRepository pageRepository;
+    private final PageContentRepository pageContentRepository;
+    private final LemmaService lemmaService;
 
-    public PageService(PageRepository pageRepository) {
+    public PageService(PageRepository pageRepository, PageContentRepository pageContentRepository,
+                       LemmaService lemmaService) {
         this.pageRepository = pageRepository;
+        this.pageContentRepository = pageContentRepository;
+        this.lemmaService = lemmaService;
     }
 
 
@@ -32,6 +43,59 @@ public class PageService {
     }
 
 
+    /**
+     * Сохраняет страницу вместе с её HTML в одной транзакции.
+     */
+    @Transactional
+    public Page save(Page page, String content) {
+        if (content == null || content.trim().isEmpty()) {
+            throw new IllegalArgumentException("Контент страницы не может быть пустым");
+        }
+        Page saved = save(page);
+        pageContentRepository.save(saved.getId(), content);
+        return saved;
+    }
+
+
+    /**
+     * Записывает проиндексированную страницу с леммами, заменяя прежнюю версию, в одной транзакции:
+     * при сбое или остановке в БД остаётся прежняя версия, а не страница без индекса.
+     *
+     * @param oldPage прежняя версия или {@code null}
+     * @return сколько строк индекса записано
+     */
+    @Transactional
+    public int saveIndexed(Page oldPage, Page page, String content, Map<String, Integer> lemmas) {
+        if (oldPage != null) {
+            lemmaService.deleteAllForPage(oldPage);
+            pageRepository.delete(oldPage);
+            // Удаление должно попасть в БД раньше вставки новой версии с тем же путём
+            pageRepository.flush();
+        }
+        Page saved = save(page, content);
+        return lemmaService.saveAllForPage(saved, lemmas);
+    }
+
+
+    /**
+     * Удаляет страницу вместе с её строками индекса в одной транзакции.
+     */
+    @Transactional
+    public void deleteIndexed(Page page) {
+        lemmaService.deleteAllForPage(page);
+        delete(page);
+    }
+
+
+    /**
+     * HTML страницы; читается отдельным запросом только когда нужен.
+     */
+    @Transactional(readOnly = true)
+    public Optional<String> findContent(Page page) {
+        return pageContentRepository.findByPageId(page.getId());
+    }
+
+
     @Transactional
     public List<Page> saveAll(List<Page> pages) {
         pages.forEach(this::validatePage);
@@ -74,6 +138,12 @@ public class PageService {
     }
 
 
+    @Transactional(readOnly = true)
+    public List<Page> findAllById(Collection<Long> ids) {
+        return pageRepository.findAllById(ids);
+    }
+
+
     @Transactional(readOnly = true)
     public List<Page> findAllBySite(Site site) {
         return pageRepository.findBySite(site);
@@ -92,6 +162,14 @@ public class PageService {
     }
 
 
+    @Transactional(readOnly = true)
+    public void forEachPathBySite(Site site, Consumer<String> action) {
+        try (Stream<String> paths = pageRepository.streamPathsBySite(site)) {
+            paths.forEach(action);
+        }
+    }
+
+
     private void validatePage(Page page) {
         if (page.getSite() == null) {
             throw new IllegalArgumentException("Сайт страницы не может быть null");
@@ -102,20 +180,20 @@ public class PageService {
         if (!page.getPath().startsWith("/")) {
             throw new IllegalArgumentException("Путь страницы должен начинаться со слеша");
         }
-        if (page.getContent() == null || page.getContent().trim().isEmpty()) {
-            throw new IllegalArgumentException("Контент страницы не может быть пустым");
-        }
         if (page.getCode() < 100 || page.getCode() > 599) {
             throw new IllegalArgumentException("Некорректный HTTP код: " + page.getCode());
         }
     }
 
 
+    /**
+     * Страницы действующих сайтов, без теневых копий и заменённых поколений.
+     */
     public long getTotalPages() {
-        return pageRepository.count();
+        return pageRepository.countBySite_Generation(SiteGeneration.LIVE);
     }
 
     public long countAll() {
-        return pageRepository.count();
+        return pageRepository.countBySite_Generation(SiteGeneration.LIVE);
     }
 }
\ No newline at end of file
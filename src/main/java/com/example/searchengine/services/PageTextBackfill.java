@@ -0,0 +1,78 @@
+package com.example.searchengine.services;
+
+import com.example.searchengine.utils.ContentCodec;
+import jakarta.annotation.PreDestroy;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Заполняет заголовок и текст страниц, сохранённых до появления этих столбцов.
+ * Идёт в фоне пачками по id, чтобы не задерживать запуск приложения; до окончания
+ * поиск для таких страниц разбирает HTML сам.
+ */
+@Component
+public class PageTextBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(PageTextBackfill.class);
+    private static final int CHUNK_SIZE = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "page-text-backfill");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public PageTextBackfill(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        executor.submit(this::run);
+    }
+
+
+    private record PageText(long id, String title, String text) {
+    }
+
+
+    private void run() {
+        try {
+            long lastId = 0;
+            long filled = 0;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<PageText> chunk = new ArrayList<>(CHUNK_SIZE);
+                jdbcTemplate.query("SELECT p.id, c.codec, c.data FROM page p JOIN page_content c ON c.page_id = p.id "
+                        + "WHERE p.plain_text IS NULL AND p.id > ? ORDER BY p.id LIMIT " + CHUNK_SIZE, rs -> {
+                    String html = ContentCodec.of(rs.getInt("codec")).decode(rs.getBytes("data"));
+                    Document doc = Jsoup.parse(html);
+                    chunk.add(new PageText(rs.getLong("id"), doc.title(), doc.body().text()));
+                }, lastId);
+                if (chunk.isEmpty()) {
+                    break;
+                }
+                lastId = chunk.get(chunk.size() - 1).id();
+                jdbcTemplate.batchUpdate("UPDATE page SET title = ?, plain_text = ? WHERE id = ? AND plain_text IS NULL",
+                        chunk.stream().map(p -> new Object[]{p.title(), p.text(), p.id()}).toList());
+                filled += chunk.size();
+            }
+            if (filled > 0) {
+                logger.info("📝 Заголовок и текст заполнены для {} ранее сохранённых страниц", filled);
+            }
+        } catch (Exception e) {
+            logger.warn("Не удалось заполнить текст страниц: {}", e.getMessage());
+        }
+    }
+
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -3,15 +3,25 @@ package com.example.searchengine.services;
 import com.example.searchengine.models.*;
 import com.example.searchengine.dto.search.SearchData;
 import com.example.searchengine.dto.search.SearchResponse;
+import com.example.searchengine.repositories.IndexRepository;
 import com.example.searchengine.services.indexing.IndexService;
 import com.example.searchengine.utils.Lemmatizer;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,16 +35,25 @@ public class SearchService {
     private final LemmaService lemmaService;
     private final IndexService indexService;
     private final SiteService siteService;
+    private final PageService pageService;
     private final Lemmatizer lemmatizer;
+    private final Executor searchExecutor;
+    private final long searchDeadlineMs;
 
     public SearchService(LemmaService lemmaService,
                          IndexService indexService,
                          SiteService siteService,
-                         Lemmatizer lemmatizer) {
+                         PageService pageService,
+                         Lemmatizer lemmatizer,
+                         @Qualifier("searchExecutor") Executor searchExecutor,
+                         @Value("${search.deadline-ms:3000}") long searchDeadlineMs) {
         this.lemmaService = lemmaService;
         this.indexService = indexService;
         this.siteService = siteService;
+        this.pageService = pageService;
         this.lemmatizer = lemmatizer;
+        this.searchExecutor = searchExecutor;
+        this.searchDeadlineMs = searchDeadlineMs;
     }
 
 
@@ -52,22 +71,151 @@ public class SearchService {
         if (sites.isEmpty()) {
             return SearchResponse.success(0, Collections.emptyList());
         }
-        List<SearchData> allResults = new ArrayList<>();
-        for (Site site : sites) {
-            allResults.addAll(searchInSite(lemmaSet, site));
-        }
-        allResults.sort((a, b) ->
-                Double.compare(b.getRelevance(), a.getRelevance()));
-        int total = allResults.size();
-        List<SearchData> paginated = allResults.stream()
-                .skip(offset)
-                .limit(limit)
-                .collect(Collectors.toList());
+        List<SiteMatches> matches = searchSites(lemmaSet, sites);
+        int total = matches.stream().mapToInt(m -> m.ranked().size()).sum();
+        List<SearchData> paginated = materialize(selectWindow(matches, offset, limit));
         logger.info("Найдено результатов: {}, показано: {}", total, paginated.size());
         return SearchResponse.success(total, paginated);
     }
 
 
+    /**
+     * Поиск по нескольким сайтам идёт параллельно в {@code searchExecutor} с общим сроком
+     * {@code search.deadline-ms}: сайты, не успевшие к сроку, в выдачу не попадают, а их задачи прерываются.
+     * Сайт, для которого в пуле не нашлось места, тоже пропускается — запрос не выполняет его сам.
+     * Порядок результатов совпадает с порядком сайтов, чтобы выдача не зависела от того, кто ответил первым.
+     */
+    private List<SiteMatches> searchSites(Set<String> lemmaSet, List<Site> sites) {
+        if (sites.size() == 1) {
+            SiteMatches siteMatches = searchInSite(lemmaSet, sites.get(0));
+            return siteMatches != null ? List.of(siteMatches) : Collections.emptyList();
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(searchDeadlineMs);
+        List<FutureTask<SiteMatches>> tasks = new ArrayList<>(sites.size());
+        for (Site site : sites) {
+            FutureTask<SiteMatches> task = new FutureTask<>(() -> searchInSite(lemmaSet, site));
+            try {
+                searchExecutor.execute(task);
+                tasks.add(task);
+            } catch (RejectedExecutionException e) {
+                logger.warn("⚠️ Пул поиска перегружен, сайт {} пропущен", site.getUrl());
+                tasks.add(null);
+            }
+        }
+        List<SiteMatches> matches = new ArrayList<>(sites.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            FutureTask<SiteMatches> task = tasks.get(i);
+            if (task == null) {
+                continue;
+            }
+            try {
+                SiteMatches siteMatches = task.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (siteMatches != null) {
+                    matches.add(siteMatches);
+                }
+            } catch (TimeoutException e) {
+                task.cancel(true);
+                logger.warn("⏱ Поиск по сайту {} не уложился в {} мс, его результаты пропущены",
+                        sites.get(i).getUrl(), searchDeadlineMs);
+            } catch (ExecutionException e) {
+                logger.error("Ошибка поиска по сайту {}: {}", sites.get(i).getUrl(), e.getCause().getMessage());
+            } catch (CancellationException e) {
+                logger.debug("Поиск по сайту {} отменён", sites.get(i).getUrl());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                tasks.stream().filter(Objects::nonNull).forEach(t -> t.cancel(true));
+                break;
+            }
+        }
+        return matches;
+    }
+
+
+    /**
+     * Совпадения на одном сайте: страницы с суммой рангов по убыванию и максимум для нормировки.
+     */
+    record SiteMatches(Site site, List<Lemma> lemmas, List<IndexRepository.PageRelevance> ranked,
+                               double maxRelevance) {
+
+        double relevance(int position) {
+            return ranked.get(position).getRelevance() / maxRelevance;
+        }
+    }
+
+
+    /**
+     * Результат из окна выдачи, для которого ещё не построены заголовок и сниппет.
+     */
+    record Hit(SiteMatches matches, long pageId, double relevance) {
+    }
+
+
+    /**
+     * Слияние уже упорядоченных списков сайтов через кучу по текущим головам:
+     * просматривается {@code offset + limit} элементов, а не все совпадения.
+     */
+    static List<Hit> selectWindow(List<SiteMatches> matches, int offset, int limit) {
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, matches.size()), (a, b) -> {
+            int byRelevance = Double.compare(matches.get(b[0]).relevance(b[1]), matches.get(a[0]).relevance(a[1]));
+            return byRelevance != 0 ? byRelevance : Integer.compare(a[0], b[0]);
+        });
+        for (int i = 0; i < matches.size(); i++) {
+            heads.add(new int[]{i, 0});
+        }
+        List<Hit> window = new ArrayList<>(Math.max(0, limit));
+        int position = 0;
+        while (!heads.isEmpty() && window.size() < limit) {
+            int[] head = heads.poll();
+            SiteMatches siteMatches = matches.get(head[0]);
+            if (position++ >= offset) {
+                window.add(new Hit(siteMatches, siteMatches.ranked().get(head[1]).getPageId(),
+                        siteMatches.relevance(head[1])));
+            }
+            if (++head[1] < siteMatches.ranked().size()) {
+                heads.add(head);
+            }
+        }
+        return window;
+    }
+
+
+    /**
+     * Заголовки и сниппеты только для страниц окна выдачи.
+     */
+    private List<SearchData> materialize(List<Hit> window) {
+        if (window.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Page> pages = pageService.findAllById(window.stream().map(Hit::pageId).toList()).stream()
+                .collect(Collectors.toMap(Page::getId, p -> p));
+        List<SearchData> results = new ArrayList<>(window.size());
+        for (Hit hit : window) {
+            Page page = pages.get(hit.pageId());
+            if (page == null) {
+                continue;
+            }
+            Site site = hit.matches().site();
+            SearchData data = new SearchData();
+            data.setSite(site.getUrl());
+            data.setSiteName(site.getName());
+            data.setUri(page.getPath());
+            String title = page.getTitle();
+            String text = page.getPlainText();
+            if (text == null) {
+                // Страница сохранена до появления столбцов и ещё не заполнена PageTextBackfill
+                Document doc = Jsoup.parse(pageService.findContent(page).orElse(""));
+                title = doc.title();
+                text = doc.body().text();
+            }
+            data.setTitle(title != null && !title.isEmpty() ? title : "Без заголовка");
+            data.setSnippet(generateSnippet(text, hit.matches().lemmas()));
+            data.setRelevance(hit.relevance());
+            results.add(data);
+        }
+        return results;
+    }
+
+
     private List<Site> getSitesForSearch(String siteUrl) {
         if (siteUrl != null && !siteUrl.isEmpty()) {
             Optional<Site> site = siteService.findByUrl(siteUrl);
@@ -89,72 +237,32 @@ public class SearchService {
     }
 
 
-    private List<SearchData> searchInSite(Set<String> lemmaSet, Site site) {
+    /**
+     * @return совпадения на сайте или {@code null}, если их нет
+     */
+    private SiteMatches searchInSite(Set<String> lemmaSet, Site site) {
         List<Lemma> lemmas = lemmaService.findAllByLemmaInAndSite(lemmaSet, site);
         if (lemmas.isEmpty()) {
-            return Collections.emptyList();
+            return null;
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            // Срок поиска истёк, пока искались леммы
+            return null;
         }
         List<Lemma> sortedLemmas = lemmas.stream()
                 .sorted(Comparator.comparingInt(Lemma::getFrequency))
                 .collect(Collectors.toList());
-        Lemma firstLemma = sortedLemmas.get(0);
-        List<Index> indexes = indexService.findByLemmaAndSite(firstLemma, site);
-        Set<Page> pages = indexes.stream()
-                .map(Index::getPage)
-                .collect(Collectors.toSet());
-        for (int i = 1; i < sortedLemmas.size(); i++) {
-            Lemma lemma = sortedLemmas.get(i);
-            Set<Page> pagesWithLemma = indexService.findByLemmaAndSite(lemma, site).stream()
-                    .map(Index::getPage)
-                    .collect(Collectors.toSet());
-            pages.retainAll(pagesWithLemma);
-            if (pages.isEmpty()) break;
-        }
-        Map<Page, Double> absoluteRelevance = new HashMap<>();
-        for (Page page : pages) {
-            double totalRank = 0.0;
-            for (Lemma lemma : sortedLemmas) {
-                Optional<Index> index = indexService.findByPageAndLemma(page, lemma);
-                if (index.isPresent()) {
-                    totalRank += index.get().getRank();
-                }
-            }
-            absoluteRelevance.put(page, totalRank);
-        }
-        double maxRelevance = absoluteRelevance.values().stream()
-                .max(Double::compare)
-                .orElse(1.0);
-        List<SearchData> results = new ArrayList<>();
-        for (Page page : pages) {
-            double relevance = absoluteRelevance.get(page) / maxRelevance;
-            SearchData data = new SearchData();
-            data.setSite(site.getUrl());
-            data.setSiteName(site.getName());
-            data.setUri(page.getPath());
-            data.setTitle(extractTitle(page.getContent()));
-            data.setSnippet(generateSnippet(page.getContent(), sortedLemmas));
-            data.setRelevance(relevance);
-            results.add(data);
-        }
-        return results;
-    }
-
-
-    private String extractTitle(String html) {
-        try {
-            Document doc = Jsoup.parse(html);
-            String title = doc.title();
-            return !title.isEmpty() ? title : "Без заголовка";
-        } catch (Exception e) {
-            return "Без заголовка";
+        List<IndexRepository.PageRelevance> ranked = indexService.findPagesWithAllLemmas(sortedLemmas);
+        if (ranked.isEmpty()) {
+            return null;
         }
+        double maxRelevance = ranked.get(0).getRelevance() > 0 ? ranked.get(0).getRelevance() : 1.0;
+        return new SiteMatches(site, sortedLemmas, ranked, maxRelevance);
     }
 
 
-    private String generateSnippet(String html, List<Lemma> lemmas) {
+    private String generateSnippet(String text, List<Lemma> lemmas) {
         try {
-            Document doc = Jsoup.parse(html);
-            String text = doc.body().text();
             String[] words = text.replaceAll("\\s+", " ").split(" ");
             Set<String> lemmaTexts = lemmas.stream()
                     .map(l -> l.getLemma().toLowerCase())
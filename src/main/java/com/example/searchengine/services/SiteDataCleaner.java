@@ -0,0 +1,117 @@
+package com.example.searchengine.services;
+
+import com.example.searchengine.models.Site;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Удаление всех данных сайта без загрузки сущностей: пачки DELETE по id в порядке внешних ключей —
+ * строки индекса и страницы, затем леммы. Каждый запрос — отдельная короткая транзакция,
+ * поэтому удаление большого сайта не держит блокировки и не раздувает undo-лог.
+ * Таблицы не секционированы, поэтому сброса секций нет.
+ */
+@Service
+public class SiteDataCleaner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteDataCleaner.class);
+    private static final int PAGE_CHUNK = 500;
+    private static final int LEMMA_CHUNK = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LemmaIdCache lemmaIdCache;
+    private final LemmaFrequencyBuffer frequencyBuffer;
+
+    private final Map<Long, WipeProgress> progress = new ConcurrentHashMap<>();
+
+    public SiteDataCleaner(JdbcTemplate jdbcTemplate, LemmaIdCache lemmaIdCache,
+                           LemmaFrequencyBuffer frequencyBuffer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.lemmaIdCache = lemmaIdCache;
+        this.frequencyBuffer = frequencyBuffer;
+    }
+
+
+    public record WipeProgress(long siteId, String siteUrl, String stage, long pagesDeleted,
+                               long indexRowsDeleted, long lemmasDeleted, long elapsedMs) {
+    }
+
+
+    /**
+     * Удаляет страницы, строки индекса и леммы сайта; сама запись сайта остаётся.
+     */
+    public WipeProgress wipe(Site site) {
+        long siteId = site.getId();
+        long start = System.currentTimeMillis();
+        frequencyBuffer.discard(siteId);
+        long pages = 0;
+        long indexRows = 0;
+        long lemmas = 0;
+        try {
+            long lastPageId = 0;
+            while (true) {
+                List<Long> pageIds = jdbcTemplate.queryForList("SELECT id FROM page WHERE site_id = ? AND id > ? "
+                        + "ORDER BY id LIMIT " + PAGE_CHUNK, Long.class, siteId, lastPageId);
+                if (pageIds.isEmpty()) {
+                    break;
+                }
+                lastPageId = pageIds.get(pageIds.size() - 1);
+                String in = String.join(", ", Collections.nCopies(pageIds.size(), "?"));
+                indexRows += jdbcTemplate.update("DELETE FROM `index` WHERE page_id IN (" + in + ")",
+                        pageIds.toArray());
+                pages += jdbcTemplate.update("DELETE FROM page WHERE id IN (" + in + ")", pageIds.toArray());
+                report(site, "pages", pages, indexRows, lemmas, start);
+            }
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update("DELETE FROM lemma WHERE site_id = ? LIMIT " + LEMMA_CHUNK, siteId);
+                lemmas += deleted;
+                report(site, "lemmas", pages, indexRows, lemmas, start);
+            } while (deleted == LEMMA_CHUNK);
+        } finally {
+            lemmaIdCache.evictSite(siteId);
+            progress.remove(siteId);
+        }
+        WipeProgress result = new WipeProgress(siteId, site.getUrl(), "done", pages, indexRows, lemmas,
+                System.currentTimeMillis() - start);
+        logger.info("🧹 Данные сайта {} удалены: страниц {}, строк индекса {}, лемм {} за {} мс",
+                site.getUrl(), pages, indexRows, lemmas, result.elapsedMs());
+        return result;
+    }
+
+
+    /**
+     * Удаляет данные сайта и саму запись сайта.
+     */
+    public WipeProgress deleteSite(Site site) {
+        WipeProgress result = wipe(site);
+        jdbcTemplate.update("DELETE FROM site WHERE id = ?", site.getId());
+        return result;
+    }
+
+
+    /**
+     * Ход удалений, которые выполняются сейчас.
+     */
+    public List<WipeProgress> getProgress() {
+        return List.copyOf(progress.values());
+    }
+
+
+    private void report(Site site, String stage, long pages, long indexRows, long lemmas, long start) {
+        WipeProgress current = new WipeProgress(site.getId(), site.getUrl(), stage, pages, indexRows, lemmas,
+                System.currentTimeMillis() - start);
+        WipeProgress previous = progress.put(site.getId(), current);
+        if (previous == null || pages / 10_000 != previous.pagesDeleted() / 10_000
+                || lemmas / 50_000 != previous.lemmasDeleted() / 50_000) {
+            logger.info("🧹 Удаление данных сайта {}: страниц {}, строк индекса {}, лемм {}",
+                    site.getUrl(), pages, indexRows, lemmas);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.searchengine.services;
 
 import com.example.searchengine.models.Site;
+import com.example.searchengine.models.SiteGeneration;
 import com.example.searchengine.models.Status;
 import com.example.searchengine.repositories.SiteRepository;
 import org.slf4j.Logger;
@@ -18,10 +19,15 @@ public class SiteService {
 
     private static final Logger logger = LoggerFactory.getLogger(SiteService.class);
     private final SiteRepository siteRepository;
+    private final LemmaIdCache lemmaIdCache;
+    private final LemmaFrequencyBuffer frequencyBuffer;
 
 
-    public SiteService(SiteRepository siteRepository) {
+    public SiteService(SiteRepository siteRepository, LemmaIdCache lemmaIdCache,
+                       LemmaFrequencyBuffer frequencyBuffer) {
         this.siteRepository = siteRepository;
+        this.lemmaIdCache = lemmaIdCache;
+        this.frequencyBuffer = frequencyBuffer;
     }
 
 
@@ -36,6 +42,8 @@ public class SiteService {
     @Transactional
     public void delete(Site site) {
         siteRepository.delete(site);
+        frequencyBuffer.discard(site.getId());
+        lemmaIdCache.evictSite(site.getId());
         logger.info("Сайт удален: {} ({})", site.getName(), site.getUrl());
     }
 
@@ -43,6 +51,8 @@ public class SiteService {
     @Transactional
     public void deleteById(long siteId) {
         siteRepository.deleteById(siteId);
+        frequencyBuffer.discard(siteId);
+        lemmaIdCache.evictSite(siteId);
         logger.info("Сайт с id {} удален", siteId);
     }
 
@@ -53,15 +63,66 @@ public class SiteService {
     }
 
 
+    /**
+     * Действующий сайт с этим URL; теневые и заменённые копии не учитываются.
+     */
     @Transactional(readOnly = true)
     public Optional<Site> findByUrl(String url) {
-        return siteRepository.findByUrl(url);
+        return siteRepository.findByUrlAndGeneration(url, SiteGeneration.LIVE);
     }
 
 
     @Transactional(readOnly = true)
     public List<Site> findAll() {
-        return siteRepository.findAll();
+        return siteRepository.findByGeneration(SiteGeneration.LIVE);
+    }
+
+
+    @Transactional(readOnly = true)
+    public Optional<Site> findShadow(Site live) {
+        return siteRepository.findByUrlAndGeneration(live.getUrl(), SiteGeneration.SHADOW);
+    }
+
+
+    @Transactional(readOnly = true)
+    public List<Site> findRetired() {
+        return siteRepository.findByGeneration(SiteGeneration.RETIRED);
+    }
+
+
+    /**
+     * Сайты со статусом INDEXING всех поколений, включая теневые копии.
+     */
+    @Transactional(readOnly = true)
+    public List<Site> findIndexing() {
+        return siteRepository.findByStatus(Status.INDEXING);
+    }
+
+
+    @Transactional
+    public Site createShadow(Site live) {
+        Site shadow = new Site(live.getName(), live.getUrl());
+        shadow.setGeneration(SiteGeneration.SHADOW);
+        return siteRepository.save(shadow);
+    }
+
+
+    /**
+     * Делает теневую копию действующим сайтом, а прежний сайт — заменённым, в одной транзакции:
+     * поиск переключается на новые данные сразу целиком.
+     */
+    @Transactional
+    public void promoteShadow(Site shadow, Site live) {
+        live.setGeneration(SiteGeneration.RETIRED);
+        live.setStatusTime(LocalDateTime.now());
+        siteRepository.save(live);
+        shadow.setGeneration(SiteGeneration.LIVE);
+        shadow.setStatus(Status.INDEXED);
+        shadow.setStatusTime(LocalDateTime.now());
+        shadow.setLastError(null);
+        siteRepository.save(shadow);
+        logger.info("Сайт {} переключен на новое поколение данных: id {} -> {}",
+                live.getUrl(), live.getId(), shadow.getId());
     }
 
 
@@ -114,7 +175,7 @@ public class SiteService {
 
     @Transactional(readOnly = true)
     public long getTotalSites() {
-        return siteRepository.count();
+        return siteRepository.countByGeneration(SiteGeneration.LIVE);
     }
 
 
@@ -128,10 +189,10 @@ public class SiteService {
     }
 
     public long countByStatus(Status status) {
-        return siteRepository.countByStatus(status);
+        return siteRepository.countByStatusAndGeneration(status, SiteGeneration.LIVE);
     }
 
     public long countAll() {
-        return siteRepository.count();
+        return siteRepository.countByGeneration(SiteGeneration.LIVE);
     }
 }
\ No newline at end of file
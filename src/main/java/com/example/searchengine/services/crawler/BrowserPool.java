@@ -0,0 +1,184 @@
+package com.example.searchengine.services.crawler;
+
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Supplier;
+
+/**
+ * Пул долгоживущих headless-браузеров. Число одновременно выданных браузеров
+ * ограничивает вызывающая сторона; пул хранит только простаивающие экземпляры.
+ * Браузер пересоздаётся после {@link #MAX_PAGES_PER_BROWSER} страниц,
+ * при росте JS-кучи выше {@link #MAX_JS_HEAP_BYTES} или если перестал отвечать.
+ */
+class BrowserPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrowserPool.class);
+    private static final int MAX_PAGES_PER_BROWSER = 50;
+    private static final long MAX_JS_HEAP_BYTES = 512L * 1024 * 1024;
+    private static final String CLEAR_STORAGE_SCRIPT =
+            "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) {}";
+    private static final String JS_HEAP_SCRIPT =
+            "return window.performance && performance.memory ? performance.memory.usedJSHeapSize : 0;";
+
+    private final Supplier<WebDriver> driverFactory;
+    private final Deque<Browser> idle = new ArrayDeque<>();
+    private int maxIdle;
+    private boolean closed;
+
+
+    BrowserPool(Supplier<WebDriver> driverFactory, int maxIdle) {
+        this.driverFactory = driverFactory;
+        this.maxIdle = maxIdle;
+    }
+
+
+    static final class Browser {
+        private final WebDriver driver;
+        private int pagesServed;
+
+        private Browser(WebDriver driver) {
+            this.driver = driver;
+        }
+
+        WebDriver driver() {
+            return driver;
+        }
+    }
+
+
+    /**
+     * Выдаёт живой браузер из пула или запускает новый.
+     */
+    Browser lease() {
+        while (true) {
+            Browser browser;
+            synchronized (this) {
+                if (closed) {
+                    throw new IllegalStateException("Пул браузеров закрыт");
+                }
+                browser = idle.pollFirst();
+            }
+            if (browser == null) {
+                long startTime = System.currentTimeMillis();
+                browser = new Browser(driverFactory.get());
+                logger.debug("✅ ChromeDriver создан за {} мс", System.currentTimeMillis() - startTime);
+                return browser;
+            }
+            if (isHealthy(browser)) {
+                return browser;
+            }
+            logger.warn("🩺 Браузер из пула не отвечает, пересоздаём");
+            quit(browser);
+        }
+    }
+
+
+    /**
+     * Возвращает браузер в пул, предварительно очистив состояние страницы.
+     *
+     * @param broken браузер завершился с ошибкой и не должен использоваться повторно
+     */
+    void release(Browser browser, boolean broken) {
+        browser.pagesServed++;
+        if (broken || needsRecycle(browser) || !reset(browser)) {
+            quit(browser);
+            return;
+        }
+        synchronized (this) {
+            if (!closed && idle.size() < maxIdle) {
+                idle.addFirst(browser);
+                return;
+            }
+        }
+        quit(browser);
+    }
+
+
+    void resize(int newMaxIdle) {
+        Deque<Browser> excess = new ArrayDeque<>();
+        synchronized (this) {
+            maxIdle = newMaxIdle;
+            while (idle.size() > maxIdle) {
+                excess.add(idle.pollLast());
+            }
+        }
+        excess.forEach(this::quit);
+    }
+
+
+    void closeIdle() {
+        Deque<Browser> toClose;
+        synchronized (this) {
+            toClose = new ArrayDeque<>(idle);
+            idle.clear();
+        }
+        if (!toClose.isEmpty()) {
+            logger.info("🧹 Закрываем {} простаивающих браузеров", toClose.size());
+        }
+        toClose.forEach(this::quit);
+    }
+
+
+    void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        closeIdle();
+    }
+
+
+    private boolean isHealthy(Browser browser) {
+        try {
+            browser.driver.getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+
+    private boolean reset(Browser browser) {
+        try {
+            WebDriver driver = browser.driver;
+            ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE_SCRIPT);
+            driver.manage().deleteAllCookies();
+            driver.get("about:blank");
+            return true;
+        } catch (Exception e) {
+            logger.debug("Не удалось очистить браузер: {}", e.getMessage());
+            return false;
+        }
+    }
+
+
+    private boolean needsRecycle(Browser browser) {
+        if (browser.pagesServed >= MAX_PAGES_PER_BROWSER) {
+            logger.debug("♻️ Браузер обработал {} страниц, пересоздаём", browser.pagesServed);
+            return true;
+        }
+        try {
+            Object heap = ((JavascriptExecutor) browser.driver).executeScript(JS_HEAP_SCRIPT);
+            if (heap instanceof Number used && used.longValue() > MAX_JS_HEAP_BYTES) {
+                logger.debug("♻️ JS-куча браузера {} МБ, пересоздаём", used.longValue() / (1024 * 1024));
+                return true;
+            }
+        } catch (Exception e) {
+            return true;
+        }
+        return false;
+    }
+
+
+    private void quit(Browser browser) {
+        try {
+            browser.driver.quit();
+        } catch (Exception e) {
+            logger.error("❌ Ошибка при закрытии Chrome: {}", e.getMessage());
+        }
+    }
+}
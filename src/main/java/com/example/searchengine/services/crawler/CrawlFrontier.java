@@ -0,0 +1,319 @@
+package com.example.searchengine.services.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Очередь обхода одного сайта в ширину.
+ * В памяти хранится ограниченная голова очереди, остальные URL дописываются в файл на диске.
+ * Состояние сохраняется в контрольную точку, по которой прерванный обход можно продолжить.
+ */
+class CrawlFrontier implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlFrontier.class);
+    private static final String SPILL_FILE = "frontier.spill";
+    private static final String CHECKPOINT_FILE = "frontier.checkpoint";
+    private static final String SPILL_HEADER = "spill";
+    private static final String QUEUED = "Q";
+    private static final String REVISIT = "R";
+
+    /**
+     * URL в очереди обхода. {@code revisit} — страница была в обработке в момент прерывания,
+     * её нужно загрузить заново, даже если она уже сохранена в БД.
+     */
+    record Entry(String url, int depth, boolean revisit) {
+    }
+
+    private final Path dir;
+    private final Path spillFile;
+    private final Path checkpointFile;
+    private final int headCapacity;
+    private final ArrayDeque<Entry> head = new ArrayDeque<>();
+    private final Set<Entry> inFlight = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final boolean resumed;
+    private BufferedWriter spillWriter;
+    private long spillReadOffset;
+    private long spillWriteOffset;
+    private long spilledCount;
+
+
+    private CrawlFrontier(Path dir, int headCapacity, boolean resume) throws IOException {
+        this.dir = dir;
+        this.spillFile = dir.resolve(SPILL_FILE);
+        this.checkpointFile = dir.resolve(CHECKPOINT_FILE);
+        this.headCapacity = Math.max(1, headCapacity);
+        Files.createDirectories(dir);
+        this.resumed = resume && Files.exists(checkpointFile) && restore();
+        if (!resumed) {
+            Files.deleteIfExists(checkpointFile);
+            Files.deleteIfExists(spillFile);
+        }
+        this.spillWriteOffset = Files.exists(spillFile) ? Files.size(spillFile) : 0;
+        this.spillWriter = openSpillWriter();
+    }
+
+
+    static CrawlFrontier open(Path dir, int headCapacity, boolean resume) throws IOException {
+        return new CrawlFrontier(dir, headCapacity, resume);
+    }
+
+
+    static boolean hasCheckpoint(Path dir) {
+        return Files.exists(dir.resolve(CHECKPOINT_FILE));
+    }
+
+
+    boolean isResumed() {
+        return resumed;
+    }
+
+
+    synchronized void offer(String url, int depth) {
+        if (url.indexOf('\n') >= 0 || url.indexOf('\r') >= 0) {
+            return;
+        }
+        if (spilledCount == 0 && head.size() < headCapacity) {
+            head.addLast(new Entry(url, depth, false));
+            return;
+        }
+        String line = depth + "\t" + url + "\n";
+        try {
+            spillWriter.write(line);
+            spillWriteOffset += line.getBytes(StandardCharsets.UTF_8).length;
+            spilledCount++;
+        } catch (IOException e) {
+            logger.warn("Не удалось записать URL в файл очереди {}: {}", spillFile, e.getMessage());
+            head.addLast(new Entry(url, depth, false));
+        }
+    }
+
+
+    /**
+     * Выдаёт следующий URL и помечает его как находящийся в обработке.
+     *
+     * @return {@code null}, если очередь пуста
+     */
+    synchronized Entry poll() {
+        if (head.isEmpty() && spilledCount > 0) {
+            refillFromSpill();
+        }
+        Entry entry = head.pollFirst();
+        if (entry != null) {
+            inFlight.add(entry);
+        }
+        return entry;
+    }
+
+
+    synchronized void complete(Entry entry) {
+        inFlight.remove(entry);
+    }
+
+
+    synchronized boolean isEmpty() {
+        return head.isEmpty() && spilledCount == 0;
+    }
+
+
+    synchronized long size() {
+        return head.size() + spilledCount;
+    }
+
+
+    synchronized void checkpoint() {
+        Path tmp = dir.resolve(CHECKPOINT_FILE + ".tmp");
+        try {
+            spillWriter.flush();
+            try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                writer.write(SPILL_HEADER + "\t" + spillReadOffset + "\t" + spilledCount + "\n");
+                for (Entry entry : inFlight) {
+                    writeEntry(writer, REVISIT, entry);
+                }
+                for (Entry entry : head) {
+                    writeEntry(writer, entry.revisit() ? REVISIT : QUEUED, entry);
+                }
+            }
+            try {
+                Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            logger.debug("💾 Контрольная точка очереди {}: в очереди {}, в обработке {}",
+                    dir, size(), inFlight.size());
+        } catch (IOException e) {
+            logger.warn("Не удалось сохранить контрольную точку {}: {}", checkpointFile, e.getMessage());
+        }
+    }
+
+
+    /**
+     * Обход завершён полностью — состояние очереди больше не нужно.
+     */
+    synchronized void discard() {
+        closeSpillWriter();
+        try {
+            Files.deleteIfExists(checkpointFile);
+            Files.deleteIfExists(spillFile);
+            Files.deleteIfExists(dir);
+        } catch (IOException e) {
+            logger.warn("Не удалось удалить состояние очереди {}: {}", dir, e.getMessage());
+        }
+    }
+
+
+    @Override
+    public synchronized void close() {
+        checkpoint();
+        closeSpillWriter();
+    }
+
+
+    private boolean restore() throws IOException {
+        List<String> lines = Files.readAllLines(checkpointFile, StandardCharsets.UTF_8);
+        if (lines.isEmpty()) {
+            return false;
+        }
+        String[] header = lines.get(0).split("\t");
+        if (header.length != 3 || !SPILL_HEADER.equals(header[0])) {
+            logger.warn("Контрольная точка {} повреждена, обход начнётся заново", checkpointFile);
+            return false;
+        }
+        try {
+            spillReadOffset = Long.parseLong(header[1]);
+            for (String line : lines.subList(1, lines.size())) {
+                String[] parts = line.split("\t", 3);
+                if (parts.length == 3) {
+                    head.addLast(new Entry(parts[2], Integer.parseInt(parts[1]), REVISIT.equals(parts[0])));
+                }
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("Контрольная точка {} повреждена, обход начнётся заново", checkpointFile);
+            head.clear();
+            spillReadOffset = 0;
+            spilledCount = 0;
+            return false;
+        }
+        recountSpill();
+        return true;
+    }
+
+
+    /**
+     * Число URL в файле берётся не из контрольной точки, а из самого файла: после неё в файл
+     * могли попасть новые строки, а при аварийной остановке последняя строка могла записаться
+     * не полностью. Недописанная строка обрезается.
+     */
+    private void recountSpill() throws IOException {
+        spilledCount = 0;
+        if (!Files.exists(spillFile)) {
+            spillReadOffset = 0;
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = channel.size();
+            spillReadOffset = Math.min(spillReadOffset, size);
+            long position = spillReadOffset;
+            long lastLineEnd = spillReadOffset;
+            ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+            channel.position(position);
+            int read;
+            while ((read = channel.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    if (buffer.get(i) == '\n') {
+                        spilledCount++;
+                        lastLineEnd = position + i + 1;
+                    }
+                }
+                position += read;
+                buffer.clear();
+            }
+            if (lastLineEnd < size) {
+                channel.truncate(lastLineEnd);
+                logger.warn("Файл очереди {}: отброшена недописанная строка ({} байт)", spillFile, size - lastLineEnd);
+            }
+        }
+    }
+
+
+    private void refillFromSpill() {
+        try {
+            spillWriter.flush();
+            try (FileChannel channel = FileChannel.open(spillFile, StandardOpenOption.READ)) {
+                channel.position(spillReadOffset);
+                BufferedReader reader = new BufferedReader(Channels.newReader(channel, StandardCharsets.UTF_8));
+                String line;
+                while (head.size() < headCapacity && (line = reader.readLine()) != null) {
+                    spillReadOffset += line.getBytes(StandardCharsets.UTF_8).length + 1;
+                    spilledCount = Math.max(0, spilledCount - 1);
+                    Entry entry = parseSpillLine(line);
+                    if (entry != null) {
+                        head.addLast(entry);
+                    } else {
+                        logger.warn("Файл очереди {}: пропущена повреждённая строка", spillFile);
+                    }
+                }
+            }
+            if (spillReadOffset >= spillWriteOffset) {
+                truncateSpill();
+            }
+        } catch (IOException e) {
+            logger.error("❌ Ошибка чтения файла очереди {}: {}", spillFile, e.getMessage());
+            spilledCount = 0;
+        }
+    }
+
+
+    private static Entry parseSpillLine(String line) {
+        int tab = line.indexOf('\t');
+        if (tab <= 0 || tab == line.length() - 1) {
+            return null;
+        }
+        try {
+            return new Entry(line.substring(tab + 1), Integer.parseInt(line.substring(0, tab)), false);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+
+    private void truncateSpill() throws IOException {
+        spillWriter.close();
+        Files.deleteIfExists(spillFile);
+        spillReadOffset = 0;
+        spillWriteOffset = 0;
+        spilledCount = 0;
+        spillWriter = openSpillWriter();
+        checkpoint();
+    }
+
+
+    private BufferedWriter openSpillWriter() throws IOException {
+        return Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+
+    private void closeSpillWriter() {
+        try {
+            spillWriter.close();
+        } catch (IOException e) {
+            logger.debug("Ошибка при закрытии файла очереди {}: {}", spillFile, e.getMessage());
+        }
+    }
+
+
+    private static void writeEntry(BufferedWriter writer, String kind, Entry entry) throws IOException {
+        writer.write(kind + "\t" + entry.depth() + "\t" + entry.url() + "\n");
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.searchengine.services.crawler;
+
+import com.example.searchengine.config.CrawlerConfig;
+import com.example.searchengine.config.SitesList;
+import com.example.searchengine.models.Site;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Общий планировщик обходов. Все сайты загружают страницы в одном пуле,
+ * одновременно обходится не больше {@code crawler.max-concurrent-sites} сайтов,
+ * а глобальный бюджет {@code crawler.global-workers} делится между ними по весам.
+ * Когда сайт завершается, его доля сразу перераспределяется между остальными.
+ */
+@Component
+public class CrawlScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CrawlScheduler.class);
+
+    private final CrawlerConfig crawlerConfig;
+    private final SitesList sitesList;
+    private final ExecutorService workers;
+    private final Semaphore siteSlots;
+    private final Map<Long, Lease> running = new ConcurrentHashMap<>();
+
+    public CrawlScheduler(CrawlerConfig crawlerConfig, SitesList sitesList) {
+        this.crawlerConfig = crawlerConfig;
+        this.sitesList = sitesList;
+        this.siteSlots = new Semaphore(Math.max(1, crawlerConfig.getMaxConcurrentSites()), true);
+        this.workers = crawlerConfig.isVirtualThreads()
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("crawl-worker-", 0).factory())
+                : new ForkJoinPool(crawlerConfig.getGlobalWorkers(),
+                        ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                        (t, e) -> logger.error("Ошибка в потоке {}: {}", t.getName(), e.getMessage()),
+                        false);
+        logger.info("🗓 Планировщик обходов: {} загрузок на все сайты, до {} сайтов одновременно",
+                crawlerConfig.getGlobalWorkers(), crawlerConfig.getMaxConcurrentSites());
+    }
+
+
+    /**
+     * Место сайта в планировщике на время обхода.
+     */
+    final class Lease {
+        private final Site site;
+        private final int weight;
+        private volatile HostConcurrencyController.Limit limit;
+
+        private Lease(Site site, int weight) {
+            this.site = site;
+            this.weight = weight;
+        }
+
+        ExecutorService executor() {
+            return workers;
+        }
+
+        /**
+         * @return потолок параллельных загрузок по профилю, до распределения бюджета
+         */
+        int maxInFlight() {
+            return crawlerConfig.isVirtualThreads()
+                    ? crawlerConfig.getMaxInFlightPages()
+                    : crawlerConfig.getPoolSize();
+        }
+
+        /**
+         * Подключает лимит хоста сайта к распределению глобального бюджета.
+         */
+        void attach(HostConcurrencyController.Limit limit) {
+            this.limit = limit;
+            rebalance();
+        }
+    }
+
+
+    /**
+     * Ждёт свободного места для сайта.
+     *
+     * @return место в планировщике или {@code null}, если ожидание прервано
+     */
+    Lease acquire(Site site, long timeoutMs) throws InterruptedException {
+        if (!siteSlots.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+            return null;
+        }
+        Lease lease = new Lease(site, weightOf(site));
+        running.put(site.getId(), lease);
+        logger.info("▶️ Сайт {} получил место в планировщике (вес {}, сайтов в работе: {})",
+                site.getUrl(), lease.weight, running.size());
+        return lease;
+    }
+
+
+    void release(Lease lease) {
+        if (running.remove(lease.site.getId(), lease)) {
+            siteSlots.release();
+            rebalance();
+            logger.info("⏹ Сайт {} освободил место в планировщике (сайтов в работе: {})",
+                    lease.site.getUrl(), running.size());
+        }
+    }
+
+
+    /**
+     * Делит глобальный бюджет между работающими сайтами пропорционально весам.
+     */
+    private synchronized void rebalance() {
+        int totalWeight = running.values().stream().mapToInt(lease -> lease.weight).sum();
+        if (totalWeight == 0) {
+            return;
+        }
+        int budget = crawlerConfig.getGlobalWorkers();
+        for (Lease lease : running.values()) {
+            HostConcurrencyController.Limit limit = lease.limit;
+            if (limit == null) {
+                continue;
+            }
+            int share = Math.max(1, budget * lease.weight / totalWeight);
+            limit.setMaxLimit(Math.min(lease.maxInFlight(), share));
+        }
+    }
+
+
+    private int weightOf(Site site) {
+        return sitesList.getSites().stream()
+                .filter(config -> site.getUrl().equals(config.getUrl()))
+                .mapToInt(SitesList.SiteConfig::getWeight)
+                .findFirst()
+                .orElse(1);
+    }
+
+
+    @PreDestroy
+    public void destroy() {
+        workers.shutdownNow();
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.searchengine.services.crawler;
+
+import com.example.searchengine.models.Site;
+import com.example.searchengine.utils.UrlClassifier;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Состояние обхода одного сайта: очередь, счётчики, флаг остановки,
+ * число запланированных страниц и адаптивный лимит одновременно обрабатываемых страниц.
+ */
+class CrawlSession {
+
+    private final Site site;
+    private final String host;
+    private final ExecutorService executor;
+    private final CrawlFrontier frontier;
+    private final HostConcurrencyController.Limit concurrency;
+    private final boolean incremental;
+    private final VisitedUrlSet visited = new VisitedUrlSet();
+    private final VisitedUrlSet storedPages = new VisitedUrlSet();
+    private final VisitedUrlSet visitedBaseUrls = new VisitedUrlSet();
+    private final UrlClassifier.SiteClassifier urls;
+    private final AtomicBoolean stopFlag = new AtomicBoolean(false);
+    private final AtomicInteger pageCounter = new AtomicInteger(0);
+    private final AtomicInteger errorCounter = new AtomicInteger(0);
+    private final AtomicLong lastActivity = new AtomicLong(System.currentTimeMillis());
+    private final AtomicInteger pendingPages = new AtomicInteger(0);
+    private final long startedAt = System.currentTimeMillis();
+    private volatile RobotsRules robots = RobotsRules.ALLOW_ALL;
+    private volatile long expectedPages;
+    private final Set<Thread> workers = new HashSet<>();
+    private final Object idleMonitor = new Object();
+    private boolean progressSignalled;
+
+    CrawlSession(Site site, ExecutorService executor, CrawlFrontier frontier,
+                 HostConcurrencyController.Limit concurrency,
+                 boolean incremental, UrlClassifier.SiteClassifier urls) {
+        this.site = site;
+        this.incremental = incremental;
+        this.urls = urls;
+        this.host = HostPolitenessScheduler.hostOf(site.getUrl());
+        this.executor = executor;
+        this.frontier = frontier;
+        this.concurrency = concurrency;
+    }
+
+
+    Site getSite() {
+        return site;
+    }
+
+    Long getSiteId() {
+        return site.getId();
+    }
+
+    String getHost() {
+        return host;
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+
+    CrawlFrontier getFrontier() {
+        return frontier;
+    }
+
+    long getStartedAt() {
+        return startedAt;
+    }
+
+    RobotsRules getRobots() {
+        return robots;
+    }
+
+    void setRobots(RobotsRules robots) {
+        this.robots = robots;
+    }
+
+    /**
+     * @return число URL в sitemap сайта или 0, если оно неизвестно
+     */
+    long getExpectedPages() {
+        return expectedPages;
+    }
+
+    void setExpectedPages(long expectedPages) {
+        this.expectedPages = expectedPages;
+    }
+
+    UrlClassifier.SiteClassifier getUrls() {
+        return urls;
+    }
+
+    /**
+     * URL обработанных страниц без query-строки и фрагмента.
+     */
+    VisitedUrlSet getVisitedBaseUrls() {
+        return visitedBaseUrls;
+    }
+
+    boolean isIncremental() {
+        return incremental;
+    }
+
+    VisitedUrlSet getVisited() {
+        return visited;
+    }
+
+    /**
+     * Пути, уже сохранённые в БД, которые инкрементальный обход перепроверяет условными запросами.
+     */
+    VisitedUrlSet getStoredPages() {
+        return storedPages;
+    }
+
+    AtomicBoolean getStopFlag() {
+        return stopFlag;
+    }
+
+    AtomicInteger getPageCounter() {
+        return pageCounter;
+    }
+
+    AtomicInteger getErrorCounter() {
+        return errorCounter;
+    }
+
+    AtomicLong getLastActivity() {
+        return lastActivity;
+    }
+
+    boolean isStopped() {
+        return stopFlag.get();
+    }
+
+    void stop() {
+        stopFlag.set(true);
+        signalProgress();
+    }
+
+    void touch() {
+        lastActivity.set(System.currentTimeMillis());
+    }
+
+
+    boolean tryAcquirePermit(long timeoutMs) throws InterruptedException {
+        return concurrency.tryAcquire(timeoutMs);
+    }
+
+    void releasePermit() {
+        concurrency.release();
+    }
+
+    HostConcurrencyController.Limit getConcurrency() {
+        return concurrency;
+    }
+
+
+    /**
+     * Пул общий для всех сайтов, поэтому вместо его остановки прерываются
+     * только потоки, занятые страницами этого сайта.
+     */
+    void workerStarted() {
+        synchronized (workers) {
+            workers.add(Thread.currentThread());
+        }
+    }
+
+    void workerFinished() {
+        synchronized (workers) {
+            workers.remove(Thread.currentThread());
+        }
+        Thread.interrupted();
+    }
+
+    void interruptWorkers() {
+        synchronized (workers) {
+            workers.forEach(Thread::interrupt);
+        }
+    }
+
+
+    int getPendingPages() {
+        return pendingPages.get();
+    }
+
+    void pageScheduled() {
+        pendingPages.incrementAndGet();
+    }
+
+    void pageFinished() {
+        pendingPages.decrementAndGet();
+        signalProgress();
+    }
+
+
+    private void signalProgress() {
+        synchronized (idleMonitor) {
+            progressSignalled = true;
+            idleMonitor.notifyAll();
+        }
+    }
+
+
+    /**
+     * Ждёт завершения какой-либо страницы или остановки обхода, но не дольше таймаута.
+     */
+    void awaitProgress(long timeoutMs) throws InterruptedException {
+        synchronized (idleMonitor) {
+            if (!progressSignalled) {
+                idleMonitor.wait(timeoutMs);
+            }
+            progressSignalled = false;
+        }
+    }
+
+
+    /**
+     * Ждёт, пока не останется запланированных страниц.
+     *
+     * @return {@code true}, если обход пришёл в состояние покоя до истечения таймаута
+     */
+    boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (idleMonitor) {
+            while (pendingPages.get() > 0) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                idleMonitor.wait(remaining);
+            }
+        }
+        return true;
+    }
+}
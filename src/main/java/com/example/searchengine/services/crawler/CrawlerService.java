@@ -1,7 +1,7 @@
 package com.example.searchengine.services.crawler;
 
 import com.example.searchengine.config.CrawlerConfig;
-import com.example.searchengine.models.Page;
+import com.example.searchengine.dto.adminLogs.PageProcessingResultDto;
 import com.example.searchengine.models.Site;
 import com.example.searchengine.services.SiteService;
 import com.example.searchengine.services.indexing.IndexingState;
@@ -10,8 +10,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.*;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 public class CrawlerService {
@@ -23,59 +23,98 @@ public class CrawlerService {
     private final PageProcessor pageProcessor;
     private final IndexingState indexingState;
     private final CrawlerConfig crawlerConfig;
+    private final SeleniumFetcher seleniumFetcher;
+    private final CrawlScheduler crawlScheduler;
 
-    private final ConcurrentHashMap<Long, ForkJoinPool> sitePools = new ConcurrentHashMap<>();
+    private final Set<Long> activeSites = ConcurrentHashMap.newKeySet();
 
     public CrawlerService(SiteService siteService,
                           SiteCrawler siteCrawler,
                           PageProcessor pageProcessor,
                           IndexingState indexingState,
-                          CrawlerConfig crawlerConfig) {
+                          CrawlerConfig crawlerConfig,
+                          SeleniumFetcher seleniumFetcher,
+                          CrawlScheduler crawlScheduler) {
         this.siteService = siteService;
         this.siteCrawler = siteCrawler;
         this.pageProcessor = pageProcessor;
         this.indexingState = indexingState;
         this.crawlerConfig = crawlerConfig;
+        this.seleniumFetcher = seleniumFetcher;
+        this.crawlScheduler = crawlScheduler;
     }
 
 
-    public void crawlSite(Site site) {
+    /**
+     * @param incremental перепроверить уже сохранённые страницы условными запросами
+     *                    вместо того, чтобы пропускать их
+     * @return {@code true}, если сайт обойдён полностью; {@code false}, если обход остановлен,
+     *         прерван ошибкой или не начинался
+     */
+    public boolean crawlSite(Site site, boolean incremental) {
         if (!indexingState.isActive()) {
             logger.warn("Индексация не активна, но crawlSite вызван для {}", site.getUrl());
-            return;
+            return false;
+        }
+        CrawlScheduler.Lease lease = awaitLease(site);
+        if (lease == null) {
+            return false;
         }
-        logger.info("🚀 Запуск обхода сайта: {} в режиме {}", site.getUrl(), crawlerConfig.getCurrentMode());
-        // ✅ Используем размер пула из конфига
-        int poolSize = crawlerConfig.getPoolSize();
-        ForkJoinPool pool = new ForkJoinPool(
-                poolSize,
-                ForkJoinPool.defaultForkJoinWorkerThreadFactory,
-                (t, e) -> logger.error("Ошибка в потоке {} сайта {}: {}",
-                        t.getName(), site.getUrl(), e.getMessage()),
-                false
-        );
-        sitePools.put(site.getId(), pool);
+        logger.info("🚀 Запуск {} обхода сайта: {} в режиме {} ({})",
+                incremental ? "инкрементального" : "полного", site.getUrl(),
+                crawlerConfig.getCurrentMode(),
+                crawlerConfig.isVirtualThreads() ? "виртуальные потоки" : "ForkJoinPool");
+        activeSites.add(site.getId());
         try {
-            siteCrawler.crawl(site, pool);
+            return siteCrawler.crawl(site, lease, incremental);
         } catch (Exception e) {
             logger.error("❌ Ошибка при обходе сайта {}: {}", site.getUrl(), e.getMessage(), e);
             siteService.updateStatusWithError(site, "Ошибка обхода: " + e.getMessage());
+            return false;
         } finally {
-            shutdownPool(site.getId(), pool);
-            sitePools.remove(site.getId());
+            crawlScheduler.release(lease);
+            activeSites.remove(site.getId());
+            if (activeSites.isEmpty()) {
+                seleniumFetcher.closeIdleBrowsers();
+            }
         }
     }
 
 
+    /**
+     * Ждёт, пока планировщик не выделит сайту место, или остановки индексации.
+     */
+    private CrawlScheduler.Lease awaitLease(Site site) {
+        try {
+            while (indexingState.isActive()) {
+                CrawlScheduler.Lease lease = crawlScheduler.acquire(site, crawlerConfig.getCheckInterval());
+                if (lease != null) {
+                    return lease;
+                }
+                logger.debug("⏳ Сайт {} ждёт свободного места в планировщике", site.getUrl());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("Индексация остановлена до начала обхода сайта {}", site.getUrl());
+        return null;
+    }
+
+
+    public boolean canResumeCrawl(Site site) {
+        return siteCrawler.canResume(site);
+    }
+
+
     public boolean indexPage(Site site, String pageUrl) {
         logger.info("📥 Ручная индексация страницы: {}", pageUrl);
         try {
-            Optional<Page> page = pageProcessor.processPage(site, pageUrl);
-            if (page.isPresent()) {
+            PageProcessingResultDto result = pageProcessor.processPage(site, pageUrl);
+            if (result.isSuccess()) {
                 logger.info("✅ Страница успешно проиндексирована: {}", pageUrl);
                 return true;
             } else {
-                logger.warn("❌ Не удалось проиндексировать страницу: {}", pageUrl);
+                logger.warn("❌ Не удалось проиндексировать страницу: {} ({})", pageUrl, result.getError());
                 return false;
             }
         } catch (Exception e) {
@@ -90,8 +129,6 @@ public class CrawlerService {
         // ✅ НЕ ставим глобальный флаг сразу!
         // indexingState.setActive(false); - убрали!
         siteCrawler.stopAllCrawling();
-        sitePools.forEach(this::shutdownPool);
-        sitePools.clear();
         // ✅ Только после завершения всех пулов ставим флаг
         indexingState.setActive(false);
         logger.info("✅ Все обходы остановлены");
@@ -101,39 +138,10 @@ public class CrawlerService {
     public void stopCrawling(Long siteId) {
         logger.info("⛔ Остановка обхода сайта ID: {}", siteId);
         siteCrawler.stopCrawling(siteId);
-        ForkJoinPool pool = sitePools.get(siteId);
-        if (pool != null) {
-            shutdownPool(siteId, pool);
-            sitePools.remove(siteId);
-            logger.info("✅ Обход сайта {} остановлен", siteId);
-        }
     }
 
 
     public Map<Long, Integer> getIndexingProgress() {
         return siteCrawler.getProgress();
     }
-
-
-    private void shutdownPool(Long siteId, ForkJoinPool pool) {
-        if (pool == null || pool.isShutdown()) {
-            return;
-        }
-        logger.debug("Завершение пула для сайта {}", siteId);
-        pool.shutdown();
-        try {
-            if (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
-                logger.warn("Пул для сайта {} не завершился за 30 сек, принудительное завершение", siteId);
-                pool.shutdownNow();
-
-                if (!pool.awaitTermination(10, TimeUnit.SECONDS)) {
-                    logger.error("НЕ УДАЛОСЬ ОСТАНОВИТЬ ПУЛ для сайта {}", siteId);
-                }
-            }
-        } catch (InterruptedException e) {
-            pool.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
-        logger.debug("Пул для сайта {} успешно завершен", siteId);
-    }
 }
\ No newline at end of file
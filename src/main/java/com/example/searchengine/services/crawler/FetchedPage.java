@@ -0,0 +1,14 @@
+package com.example.searchengine.services.crawler;
+
+import org.jsoup.nodes.Document;
+
+/**
+ * Результат загрузки страницы. {@code document} есть только у успешных (2xx) HTML-ответов.
+ */
+public record FetchedPage(int statusCode, String finalUrl, Document document,
+                          String etag, String lastModified) {
+
+    public boolean isSuccess() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.searchengine.services.crawler;
+
+import com.example.searchengine.config.CrawlerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Адаптивный лимит одновременных загрузок для каждого хоста (AIMD).
+ * Лимит принадлежит обходу сайта, а не хосту: у действующего сайта и его теневой копии,
+ * которые обходят один хост, лимиты и бюджеты свои. Вежливость к хосту общая —
+ * её держит {@link HostPolitenessScheduler}.
+ * Пока p95 задержки и доля ошибок в норме, лимит растёт на единицу за каждое «окно»
+ * из {@code limit} загрузок; таймаут, 429 или 5xx уменьшают его вдвое.
+ * Потолок лимита — значение из текущего профиля {@link CrawlerConfig}
+ * или доля общего бюджета, выделенная сайту {@link CrawlScheduler}.
+ */
+@Component
+public class HostConcurrencyController {
+
+    private static final Logger logger = LoggerFactory.getLogger(HostConcurrencyController.class);
+    private static final int LATENCY_SAMPLES = 64;
+    private static final long MIN_DECREASE_INTERVAL_MS = 1000;
+
+    private final CrawlerConfig crawlerConfig;
+    private final Map<Long, Limit> limits = new ConcurrentHashMap<>();
+
+    public HostConcurrencyController(CrawlerConfig crawlerConfig) {
+        this.crawlerConfig = crawlerConfig;
+    }
+
+
+    public record HostLimitStats(long siteId, String host, int limit, int maxLimit, int inFlight,
+                                 long p95LatencyMs, double errorRate) {
+    }
+
+
+    /**
+     * Лимит хоста на время обхода сайта. Без адаптации он сразу равен потолку и не меняется.
+     */
+    Limit limitFor(long siteId, String host, int maxLimit) {
+        return limits.computeIfAbsent(siteId, id -> {
+            int initial = crawlerConfig.isAdaptiveConcurrency()
+                    ? Math.min(maxLimit, Math.max(2, maxLimit / 4))
+                    : maxLimit;
+            logger.info("🎚 Лимит параллельных загрузок для {}: {} (максимум {})", host, initial, maxLimit);
+            return new Limit(siteId, host, initial, maxLimit, crawlerConfig.isAdaptiveConcurrency(),
+                    crawlerConfig.getTargetLatencyMs());
+        });
+    }
+
+
+    void remove(Limit limit) {
+        limits.remove(limit.siteId, limit);
+    }
+
+
+    public List<HostLimitStats> getStats() {
+        return limits.values().stream()
+                .map(Limit::stats)
+                .sorted(Comparator.comparing(HostLimitStats::host).thenComparingLong(HostLimitStats::siteId))
+                .toList();
+    }
+
+
+    static final class Limit {
+        private final long siteId;
+        private final String host;
+        private final boolean adaptive;
+        private final long targetLatencyMs;
+        private final long[] latencies = new long[LATENCY_SAMPLES];
+        private int latencyCount;
+        private int latencyIndex;
+        private int limit;
+        private int maxLimit;
+        private int inFlight;
+        private int windowSamples;
+        private int windowErrors;
+        private long lastDecreaseAt;
+
+        Limit(long siteId, String host, int limit, int maxLimit, boolean adaptive, long targetLatencyMs) {
+            this.siteId = siteId;
+            this.host = host;
+            this.limit = limit;
+            this.maxLimit = maxLimit;
+            this.adaptive = adaptive;
+            this.targetLatencyMs = targetLatencyMs;
+        }
+
+
+        synchronized boolean tryAcquire(long timeoutMs) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+            while (inFlight >= limit) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                wait(remaining);
+            }
+            inFlight++;
+            return true;
+        }
+
+
+        /**
+         * Меняет потолок лимита, например при перераспределении общего бюджета между сайтами.
+         * Без адаптации лимит всегда равен потолку, с адаптацией дорастает до него постепенно.
+         */
+        synchronized void setMaxLimit(int maxLimit) {
+            if (maxLimit == this.maxLimit) {
+                return;
+            }
+            this.maxLimit = Math.max(1, maxLimit);
+            if (!adaptive || limit > this.maxLimit) {
+                limit = this.maxLimit;
+            }
+            notifyAll();
+            logger.debug("🎚 Потолок параллельных загрузок для {}: {}, лимит {}", host, this.maxLimit, limit);
+        }
+
+
+        synchronized void release() {
+            inFlight--;
+            notifyAll();
+        }
+
+
+        /**
+         * Загрузка завершилась ответом сервера за {@code latencyMs}.
+         */
+        synchronized void onSuccess(long latencyMs) {
+            latencies[latencyIndex] = latencyMs;
+            latencyIndex = (latencyIndex + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+            if (++windowSamples < limit) {
+                return;
+            }
+            long p95 = p95();
+            boolean healthy = windowErrors * 20 <= windowSamples && p95 <= targetLatencyMs;
+            if (adaptive && healthy && limit < maxLimit) {
+                limit++;
+                notifyAll();
+                logger.debug("📈 Лимит для {} увеличен до {} (p95 {} мс)", host, limit, p95);
+            }
+            windowSamples = 0;
+            windowErrors = 0;
+        }
+
+
+        /**
+         * Таймаут, 429 или 5xx. Повторные сигналы от загрузок, начатых до снижения,
+         * в течение интервала снижения не учитываются.
+         */
+        synchronized void onOverload() {
+            windowErrors++;
+            long now = System.currentTimeMillis();
+            if (!adaptive || now - lastDecreaseAt < Math.max(MIN_DECREASE_INTERVAL_MS, p95())) {
+                return;
+            }
+            int previous = limit;
+            limit = Math.max(1, limit / 2);
+            lastDecreaseAt = now;
+            windowSamples = 0;
+            windowErrors = 0;
+            logger.info("📉 Лимит для {} снижен с {} до {}", host, previous, limit);
+        }
+
+
+        synchronized HostLimitStats stats() {
+            int samples = windowSamples + windowErrors;
+            return new HostLimitStats(siteId, host, limit, maxLimit, inFlight, p95(),
+                    samples == 0 ? 0.0 : (double) windowErrors / samples);
+        }
+
+
+        private long p95() {
+            if (latencyCount == 0) {
+                return 0;
+            }
+            long[] sorted = Arrays.copyOf(latencies, latencyCount);
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(latencyCount * 0.95) - 1];
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.searchengine.services.crawler;
+
+import com.example.searchengine.config.CrawlerConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Вежливость обхода по хостам: token bucket на каждый хост.
+ * Не блокирует вызывающий поток — бронирует слот и сообщает, когда можно загружать.
+ */
+@Component
+public class HostPolitenessScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(HostPolitenessScheduler.class);
+
+    private final CrawlerConfig crawlerConfig;
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<String, Long> crawlDelays = new ConcurrentHashMap<>();
+
+    public HostPolitenessScheduler(CrawlerConfig crawlerConfig) {
+        this.crawlerConfig = crawlerConfig;
+    }
+
+
+    /**
+     * Бронирует ближайший свободный слот хоста.
+     *
+     * @return через сколько миллисекунд можно загружать страницу (0 — сразу)
+     */
+    public long reserve(String host) {
+        return buckets.computeIfAbsent(host, this::createBucket).reserve(System.nanoTime());
+    }
+
+
+    public void setCrawlDelay(String host, long crawlDelayMs) {
+        if (crawlDelayMs <= 0) {
+            crawlDelays.remove(host);
+        } else {
+            crawlDelays.put(host, crawlDelayMs);
+            logger.info("🐢 Crawl-delay для {}: {} мс", host, crawlDelayMs);
+        }
+        buckets.remove(host);
+    }
+
+
+    public void reset(String host) {
+        buckets.remove(host);
+    }
+
+
+    public static String hostOf(String url) {
+        try {
+            String host = URI.create(url).getHost();
+            if (host != null) {
+                return host.toLowerCase(Locale.ROOT);
+            }
+        } catch (IllegalArgumentException e) {
+            logger.debug("Не удалось определить хост: {}", url);
+        }
+        return url;
+    }
+
+
+    private TokenBucket createBucket(String host) {
+        double ratePerSecond = crawlerConfig.getHostRequestsPerSecond();
+        int burst = crawlerConfig.getHostBurst();
+        Long crawlDelay = crawlDelays.get(host);
+        if (crawlDelay != null) {
+            ratePerSecond = Math.min(ratePerSecond, 1000.0 / crawlDelay);
+            burst = 1;
+        }
+        logger.debug("Token bucket для {}: {} запр/сек, burst {}", host, ratePerSecond, burst);
+        return new TokenBucket(ratePerSecond, burst);
+    }
+
+
+    static final class TokenBucket {
+        private final double tokensPerNano;
+        private final double capacity;
+        private double tokens;
+        private long lastRefill;
+
+        TokenBucket(double ratePerSecond, int burst) {
+            this(ratePerSecond, burst, System.nanoTime());
+        }
+
+        TokenBucket(double ratePerSecond, int burst, long now) {
+            this.tokensPerNano = ratePerSecond / 1_000_000_000.0;
+            this.capacity = Math.max(1, burst);
+            this.tokens = this.capacity;
+            this.lastRefill = now;
+        }
+
+        synchronized long reserve(long now) {
+            refill(now);
+            tokens -= 1.0;
+            return tokens >= 0 ? 0 : toMillis(-tokens / tokensPerNano);
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+            lastRefill = now;
+        }
+
+        private static long toMillis(double nanos) {
+            return Math.max(1, (long) Math.ceil(nanos / 1_000_000));
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.searchengine.services.crawler;
+
+import com.example.searchengine.config.CrawlerConfig;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Загрузка через общий {@link HttpClient}: keep-alive соединения к хосту переиспользуются,
+ * с серверами, которые это поддерживают, согласуется HTTP/2, ответ запрашивается сжатым.
+ * Тело ответа разбирается Jsoup прямо из потока, без промежуточной строки.
+ */
+@Component
+public class HttpClientPageFetcher implements PageFetcher {
+
+    static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36...";
+    static final String REFERRER = "https://www.google.com/";
+
+    private final CrawlerConfig crawlerConfig;
+    private final HttpClient client;
+
+    public HttpClientPageFetcher(CrawlerConfig crawlerConfig) {
+        this.crawlerConfig = crawlerConfig;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(Duration.ofMillis(crawlerConfig.getTimeout()))
+                .build();
+    }
+
+
+    @Override
+    public FetchedPage fetch(String url, Map<String, String> headers) throws IOException, InterruptedException {
+        return toPage(client.send(request(url, headers), HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+
+    /**
+     * Открывает тело ответа как поток байтов (robots.txt, sitemap).
+     * Сжатые gzip-файлы распаковываются и без заголовка Content-Encoding.
+     *
+     * @return {@code null}, если сервер ответил не 2xx
+     */
+    public InputStream openStream(String url) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(request(url, Map.of()),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() < 200 || response.statusCode() >= 300) {
+            response.body().close();
+            return null;
+        }
+        BufferedInputStream body = new BufferedInputStream(decode(response));
+        body.mark(2);
+        int first = body.read();
+        int second = body.read();
+        body.reset();
+        boolean gzipped = first == 0x1f && second == 0x8b;
+        return gzipped ? new GZIPInputStream(body) : body;
+    }
+
+
+    private HttpRequest request(String url, Map<String, String> headers) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(toUri(url))
+                .timeout(Duration.ofMillis(crawlerConfig.getTimeout()))
+                .header("User-Agent", USER_AGENT)
+                .header("Referer", REFERRER)
+                .header("Accept", "text/html,application/xhtml+xml;q=0.9,*/*;q=0.8")
+                .header("Accept-Encoding", "gzip, deflate")
+                .GET();
+        headers.forEach(builder::header);
+        return builder.build();
+    }
+
+
+    /**
+     * Jsoup отдаёт абсолютные ссылки с неэкранированной кириллицей и пробелами,
+     * которые {@link URI#create(String)} не принимает.
+     */
+    private static URI toUri(String url) {
+        try {
+            return URI.create(url);
+        } catch (IllegalArgumentException e) {
+            StringBuilder escaped = new StringBuilder(url.length() + 16);
+            for (byte b : url.getBytes(StandardCharsets.UTF_8)) {
+                int c = b & 0xff;
+                if (c <= 0x20 || c >= 0x7f || "\"<>\\^`{|}".indexOf(c) >= 0) {
+                    escaped.append('%').append(HexFormat.of().withUpperCase().toHexDigits((byte) c));
+                } else {
+                    escaped.append((char) c);
+                }
+            }
+            return URI.create(escaped.toString());
+        }
+    }
+
+
+    private FetchedPage toPage(HttpResponse<InputStream> response) throws IOException {
+        int statusCode = response.statusCode();
+        String finalUrl = response.uri().toString();
+        String contentType = response.headers().firstValue("Content-Type").orElse(null);
+        if (statusCode < 200 || statusCode >= 300 || !isHtml(contentType)) {
+            response.body().close();
+            return new FetchedPage(statusCode, finalUrl, null, null, null);
+        }
+        try (InputStream body = decode(response)) {
+            Document doc = Jsoup.parse(body, charsetOf(contentType), finalUrl);
+            return new FetchedPage(statusCode, finalUrl, doc,
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+        }
+    }
+
+
+    private static InputStream decode(HttpResponse<InputStream> response) throws IOException {
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("")
+                .trim().toLowerCase(Locale.ROOT);
+        return switch (encoding) {
+            case "gzip", "x-gzip" -> new GZIPInputStream(response.body());
+            case "deflate" -> new InflaterInputStream(response.body());
+            default -> response.body();
+        };
+    }
+
+
+    private static boolean isHtml(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        String type = contentType.toLowerCase(Locale.ROOT);
+        return type.startsWith("text/") || type.contains("xml");
+    }
+
+
+    /**
+     * @return кодировка из Content-Type или {@code null}, чтобы Jsoup определил её по BOM и meta
+     */
+    private static String charsetOf(String contentType) {
+        if (contentType == null) {
+            return null;
+        }
+        for (String part : contentType.split(";")) {
+            String param = part.trim();
+            if (param.toLowerCase(Locale.ROOT).startsWith("charset=")) {
+                String charset = param.substring("charset=".length()).replace("\"", "").trim();
+                try {
+                    return Charset.isSupported(charset) ? charset : null;
+                } catch (IllegalCharsetNameException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
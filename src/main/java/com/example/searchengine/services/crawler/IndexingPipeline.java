@@ -0,0 +1,65 @@
+package com.example.searchengine.services.crawler;
+
+import com.example.searchengine.config.CrawlerConfig;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Конвейер обработки загруженных страниц. Загрузка идёт в потоках обхода,
+ * разбор и лемматизация — на этапе {@code analyze} (CPU), запись в БД — на этапе {@code persist}.
+ * Очереди этапов ограничены, поэтому медленная БД притормаживает загрузку, а не копит страницы в памяти.
+ */
+@Component
+public class IndexingPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexingPipeline.class);
+
+    private final PipelineStage analyze;
+    private final PipelineStage persist;
+
+    public IndexingPipeline(CrawlerConfig crawlerConfig) {
+        this.analyze = new PipelineStage("analyze", crawlerConfig.getAnalyzeThreads(),
+                crawlerConfig.getStageQueueCapacity());
+        this.persist = new PipelineStage("persist", crawlerConfig.getPersistThreads(),
+                crawlerConfig.getStageQueueCapacity());
+        logger.info("🏭 Конвейер страниц: разбор {} потоков, запись {} потоков, очередь этапа {}",
+                crawlerConfig.getAnalyzeThreads(), crawlerConfig.getPersistThreads(),
+                crawlerConfig.getStageQueueCapacity());
+    }
+
+
+    public record StageStats(String stage, int threads, int active, int queued, int capacity,
+                             int waitingProducers, long completed) {
+    }
+
+
+    <T> CompletableFuture<T> analyze(Callable<T> task) {
+        return analyze.submit(task);
+    }
+
+
+    <T> CompletableFuture<T> persist(Callable<T> task) {
+        return persist.submit(task);
+    }
+
+
+    /**
+     * {@code waitingProducers} этапа — потоки предыдущего этапа, ждущие места в его очереди.
+     */
+    public List<StageStats> getStats() {
+        return List.of(analyze.stats(), persist.stats());
+    }
+
+
+    @PreDestroy
+    public void destroy() {
+        analyze.shutdown();
+        persist.shutdown();
+    }
+}
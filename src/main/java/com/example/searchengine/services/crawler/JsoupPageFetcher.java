@@ -0,0 +1,48 @@
+package com.example.searchengine.services.crawler;
+
+import com.example.searchengine.config.CrawlerConfig;
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+import org.jsoup.UnsupportedMimeTypeException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Загрузка через {@link Jsoup#connect(String)}: отдельное соединение на каждый запрос.
+ */
+@Component
+public class JsoupPageFetcher implements PageFetcher {
+
+    private final CrawlerConfig crawlerConfig;
+
+    public JsoupPageFetcher(CrawlerConfig crawlerConfig) {
+        this.crawlerConfig = crawlerConfig;
+    }
+
+
+    @Override
+    public FetchedPage fetch(String url, Map<String, String> headers) throws IOException {
+        Connection.Response response;
+        try {
+            response = Jsoup.connect(url)
+                    .userAgent(HttpClientPageFetcher.USER_AGENT)
+                    .referrer(HttpClientPageFetcher.REFERRER)
+                    .headers(headers)
+                    .timeout(crawlerConfig.getTimeout())
+                    .followRedirects(true)
+                    .ignoreHttpErrors(true)
+                    .execute();
+        } catch (UnsupportedMimeTypeException e) {
+            return new FetchedPage(200, e.getUrl(), null, null, null);
+        }
+        int statusCode = response.statusCode();
+        String finalUrl = response.url().toString();
+        if (statusCode < 200 || statusCode >= 300) {
+            return new FetchedPage(statusCode, finalUrl, null, null, null);
+        }
+        return new FetchedPage(statusCode, finalUrl, response.parse(),
+                response.header("ETag"), response.header("Last-Modified"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.searchengine.services.crawler;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Срок загрузки одной страницы. По истечении срока прерывает поток,
+ * который создал дедлайн, вместо отдельного executor на каждую страницу.
+ * Отсчёт начинается с {@link #arm()}, непосредственно перед загрузкой.
+ * Должен создаваться, запускаться и сниматься ({@link #disarm()}) в одном и том же потоке.
+ */
+final class PageDeadline {
+
+    private final Thread worker;
+    private final ScheduledExecutorService timerService;
+    private final long timeoutMs;
+    private ScheduledFuture<?> timer;
+    private long startedAt;
+    private long elapsedNanos;
+    private boolean disarmed;
+    private boolean expired;
+
+    PageDeadline(ScheduledExecutorService timerService, long timeoutMs) {
+        this.worker = Thread.currentThread();
+        this.timerService = timerService;
+        this.timeoutMs = timeoutMs;
+    }
+
+
+    /**
+     * Запускает отсчёт срока. Повторный вызов и вызов после снятия ничего не делают.
+     */
+    synchronized void arm() {
+        if (timer == null && !disarmed) {
+            startedAt = System.nanoTime();
+            timer = timerService.schedule(this::expire, timeoutMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+
+    private synchronized void expire() {
+        if (!disarmed) {
+            expired = true;
+            worker.interrupt();
+        }
+    }
+
+
+    /**
+     * Снимает дедлайн. Повторный вызов безопасен.
+     *
+     * @return {@code true}, если работа завершилась до истечения срока
+     */
+    synchronized boolean disarm() {
+        if (!disarmed) {
+            disarmed = true;
+            if (timer != null) {
+                elapsedNanos = System.nanoTime() - startedAt;
+                timer.cancel(false);
+            }
+            if (expired) {
+                Thread.interrupted();
+            }
+        }
+        return !expired;
+    }
+
+
+    /**
+     * @return время от запуска до снятия дедлайна, то есть длительность загрузки
+     */
+    synchronized long elapsedMs() {
+        return TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.searchengine.services.crawler;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Загрузка страницы по HTTP без JS-рендеринга. Вызов блокирующий: параллельность обхода дают
+ * потоки обхода (в том числе виртуальные), а не асинхронные запросы.
+ */
+public interface PageFetcher {
+
+    /**
+     * @param headers дополнительные заголовки запроса (например, условные If-None-Match)
+     */
+    FetchedPage fetch(String url, Map<String, String> headers) throws IOException, InterruptedException;
+}
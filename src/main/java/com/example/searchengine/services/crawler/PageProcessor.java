@@ -1,181 +1,303 @@
 package com.example.searchengine.services.crawler;
 
 import com.example.searchengine.config.CrawlerConfig;
+import com.example.searchengine.dto.adminLogs.PageProcessingResultDto;
 import com.example.searchengine.models.Page;
 import com.example.searchengine.models.Site;
-import com.example.searchengine.services.LemmaService;
 import com.example.searchengine.services.PageService;
-import com.example.searchengine.services.indexing.IndexService;
 import com.example.searchengine.services.indexing.IndexingState;
 import com.example.searchengine.utils.Lemmatizer;
-import com.example.searchengine.utils.UrlFilter;
-import org.jsoup.Connection;
+import com.example.searchengine.utils.UrlClassifier;
+import com.example.searchengine.utils.UrlVerdict;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import java.io.IOException;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Component
 public class PageProcessor {
     private static final Logger logger = LoggerFactory.getLogger(PageProcessor.class);
-    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36...";
-    private static final String REFERRER = "https://www.google.com/";
     private final PageService pageService;
-    private final LemmaService lemmaService;
-    private final IndexService indexService;
     private final Lemmatizer lemmatizer;
     private final CrawlerConfig crawlerConfig;
-    private final UrlFilter urlFilter;
+    private final UrlClassifier urlClassifier;
     private final IndexingState indexingState;
     private final SeleniumFetcher seleniumFetcher;
-    private final WatchdogService watchdogService;
+    private final LinkExtractor linkExtractor;
+    private final HttpClientPageFetcher httpClientFetcher;
+    private final JsoupPageFetcher jsoupFetcher;
+    private final IndexingPipeline pipeline;
 
     public PageProcessor(PageService pageService,
-                         LemmaService lemmaService,
-                         IndexService indexService,
                          Lemmatizer lemmatizer,
                          CrawlerConfig crawlerConfig,
-                         UrlFilter urlFilter,
+                         UrlClassifier urlClassifier,
                          IndexingState indexingState,
                          SeleniumFetcher seleniumFetcher,
-                         WatchdogService watchdogService) {
+                         LinkExtractor linkExtractor,
+                         HttpClientPageFetcher httpClientFetcher,
+                         JsoupPageFetcher jsoupFetcher,
+                         IndexingPipeline pipeline) {
         this.pageService = pageService;
-        this.lemmaService = lemmaService;
-        this.indexService = indexService;
         this.lemmatizer = lemmatizer;
         this.crawlerConfig = crawlerConfig;
-        this.urlFilter = urlFilter;
+        this.urlClassifier = urlClassifier;
         this.indexingState = indexingState;
         this.seleniumFetcher = seleniumFetcher;
-        this.watchdogService = watchdogService;
+        this.linkExtractor = linkExtractor;
+        this.httpClientFetcher = httpClientFetcher;
+        this.jsoupFetcher = jsoupFetcher;
+        this.pipeline = pipeline;
     }
 
-    public Optional<Page> processPage(Site site, String pageUrl) {
-        watchdogService.notifyActivity();
+    public PageProcessingResultDto processPage(Site site, String pageUrl) {
+        try {
+            return processPage(site, pageUrl, null, true).join();
+        } catch (CompletionException | CancellationException e) {
+            return failed(pageUrl, e);
+        }
+    }
+
+
+    /**
+     * Загружает страницу в вызывающем потоке и передаёт её на этапы конвейера {@link IndexingPipeline}.
+     * Если этапы не успевают, вызов блокируется до появления места в очереди.
+     *
+     * @param replaceExisting страница может уже быть в БД: тогда загрузка идёт условным запросом,
+     *                        а неизменившаяся страница не переиндексируется;
+     *                        при обходе сайта новые пути уже отсеяны по множеству посещённых
+     * @return результат, который завершится после записи страницы в БД
+     */
+    CompletableFuture<PageProcessingResultDto> processPage(Site site, String pageUrl, PageDeadline fetchDeadline,
+                                                           boolean replaceExisting) {
         long startTime = System.currentTimeMillis();
         boolean useBrowser = seleniumFetcher.shouldUseBrowser(pageUrl);
         logger.info("🔍 shouldUseBrowser для {} = {}", pageUrl, useBrowser);
         try {
             if (!indexingState.isActive()) {
                 logger.debug("Индексация остановлена, пропускаем {}", pageUrl);
-                return Optional.empty();
+                return error(pageUrl, 0, "Индексация остановлена");
             }
             logger.debug("📥 Загрузка страницы: {}", pageUrl);
-            if (!urlFilter.shouldIndex(pageUrl)) {
+            UrlVerdict verdict = urlClassifier.classify(pageUrl, site.getUrl());
+            if (!verdict.crawlable() || !verdict.indexable()) {
                 logger.debug("Страница отфильтрована: {}", pageUrl);
-                return Optional.empty();
-            }
-            if (!indexingState.isActive()) {
-                logger.debug("Индексация остановлена перед задержкой");
-                return Optional.empty();
+                return error(pageUrl, 0, "Страница отфильтрована");
             }
-            Thread.sleep(crawlerConfig.getRandomDelay());
-            if (!indexingState.isActive()) {
-                logger.debug("Индексация остановлена после задержки");
-                return Optional.empty();
+            String normalizedPath = verdict.normalizedPath();
+            Page oldPage = replaceExisting
+                    ? pageService.findByPathAndSite(normalizedPath, site).orElse(null)
+                    : null;
+            // Срок отсчитывается с загрузки: поиск сохранённой версии в БД в него не входит
+            if (fetchDeadline != null) {
+                fetchDeadline.arm();
             }
             Document doc;
+            int statusCode = 200;
+            String etag = null;
+            String lastModified = null;
             if (useBrowser) {
                 doc = seleniumFetcher.fetchWithBrowser(pageUrl);
                 if (doc == null) {
-                    return Optional.empty();
+                    return error(pageUrl, 0, "Браузер не вернул документ");
                 }
                 logger.debug(">>> Документ получен через Selenium");
                 logger.debug(">>> Заголовок страницы: {}", doc.title());
                 logger.debug(">>> Размер HTML: {} байт", doc.html().length());
                 logger.debug(">>> Количество ссылок на странице: {}", doc.select("a[href]").size());
             } else {
-                Connection.Response response = Jsoup.connect(pageUrl)
-                        .userAgent(USER_AGENT)
-                        .referrer(REFERRER)
-                        .timeout(crawlerConfig.getTimeout())
-                        .followRedirects(true)
-                        .execute();
-                int statusCode = response.statusCode();
-                if (statusCode < 200 || statusCode >= 300) {
-                    logger.debug("Страница {} недоступна, код: {}", pageUrl, statusCode);
-                    return Optional.empty();
+                Map<String, String> headers = new HashMap<>();
+                if (oldPage != null && oldPage.getEtag() != null) {
+                    headers.put("If-None-Match", oldPage.getEtag());
                 }
-                String finalUrl = response.url().toString();
-                if (!finalUrl.startsWith(site.getUrl())) {
-                    logger.debug("Редирект на внешний ресурс: {} -> {}", pageUrl, finalUrl);
-                    return Optional.empty();
+                if (oldPage != null && oldPage.getLastModified() != null) {
+                    headers.put("If-Modified-Since", oldPage.getLastModified());
                 }
-                doc = response.parse();
+                FetchedPage fetched = pageFetcher().fetch(pageUrl, headers);
+                statusCode = fetched.statusCode();
+                if (!fetched.finalUrl().startsWith(site.getUrl())) {
+                    logger.debug("Редирект на внешний ресурс: {} -> {}", pageUrl, fetched.finalUrl());
+                    return error(pageUrl, statusCode, "Редирект на внешний ресурс");
+                }
+                if (fetched.isSuccess() && fetched.document() == null) {
+                    logger.debug("Страница {} не является HTML", pageUrl);
+                    return error(pageUrl, statusCode, "Неподдерживаемый тип содержимого");
+                }
+                doc = fetched.document();
+                etag = fetched.etag();
+                lastModified = fetched.lastModified();
             }
-            String normalizedPath = urlFilter.normalizePath(pageUrl, site.getUrl());
-            String content = doc.html();
-            String text = doc.body().text();
-            String title = doc.title();
-            logger.debug("Контент: HTML={} байт, TEXT={} символов", content.length(), text.length());
-            if (text.length() < 100) {
-                logger.warn("⚠️ Мало текста на странице {}: {} символов", pageUrl, text.length());
+            if (fetchDeadline != null && !fetchDeadline.disarm()) {
+                logger.debug("Загрузка {} не уложилась в срок", pageUrl);
+                return error(pageUrl, 0, "Таймаут загрузки");
             }
-            if (!indexingState.isActive()) {
-                logger.debug("Индексация остановлена перед удалением старой версии");
-                return Optional.empty();
+            if (statusCode == 304 && oldPage != null) {
+                logger.debug("♻️ Страница не изменилась (304): {}", normalizedPath);
+                return pipeline.analyze(() -> unchanged(oldPage, pageUrl, site));
             }
-            if (pageService.existsByPathAndSite(normalizedPath, site)) {
-                logger.debug("Страница уже существует, обновляем: {}", normalizedPath);
-                pageService.findByPathAndSite(normalizedPath, site).ifPresent(oldPage -> {
-                    try {
-                        indexService.deleteByPage(oldPage);
-                        lemmaService.decrementAllForPage(oldPage);
-                        pageService.delete(oldPage);
-                    } catch (Exception e) {
-                        logger.warn("Ошибка при удалении старой версии: {}", e.getMessage());
-                    }
+            if ((statusCode == 404 || statusCode == 410) && oldPage != null) {
+                logger.info("🗑 Страница удалена с сайта ({}), удаляем из индекса: {}", statusCode, normalizedPath);
+                int goneStatus = statusCode;
+                return pipeline.persist(() -> {
+                    deletePage(oldPage);
+                    return PageProcessingResultDto.error(pageUrl, goneStatus, "Страница удалена с сайта");
                 });
             }
-            if (!indexingState.isActive()) {
-                logger.debug("Индексация остановлена перед сохранением страницы");
-                return Optional.empty();
+            if (doc == null) {
+                logger.debug("Страница {} недоступна, код: {}", pageUrl, statusCode);
+                return error(pageUrl, statusCode, "Страница недоступна");
             }
-            Page page = new Page(normalizedPath, 200, content, site);
-            page = pageService.save(page);
-            if (!indexingState.isActive()) {
-                logger.debug("Индексация остановлена перед лемматизацией");
-                return Optional.empty();
-            }
-            Map<String, Integer> textLemmas = lemmatizer.getLemmasFrequency(text);
-            Map<String, Integer> titleLemmas = lemmatizer.getLemmasFrequency(title);
-            titleLemmas.forEach((lemma, count) ->
-                    textLemmas.merge(lemma, count * 2, Integer::sum));
-            int lemmaCount = 0;
-            for (Map.Entry<String, Integer> entry : textLemmas.entrySet()) {
-                if (!indexingState.isActive()) {
-                    logger.debug("Индексация остановлена во время обработки лемм");
-                    break;
-                }
-                try {
-                    var lemma = lemmaService.saveOrIncrement(entry.getKey(), site);
-                    indexService.save(page, lemma, entry.getValue());
-                    lemmaCount++;
-                } catch (Exception e) {
-                    logger.error("Ошибка при сохранении леммы '{}': {}",
-                            entry.getKey(), e.getMessage());
-                }
-            }
-            long duration = System.currentTimeMillis() - startTime;
-            logger.info("✅ Страница обработана: {} ({} лемм, {} мс)",
-                    normalizedPath, lemmaCount, duration);
-            return Optional.of(page);
+            Document document = doc;
+            StoredPage target = new StoredPage(site, pageUrl, normalizedPath, oldPage, etag, lastModified);
+            return pipeline.analyze(() -> analyze(document, target))
+                    .thenCompose(parsed -> parsed.lemmas() == null
+                            ? CompletableFuture.completedFuture(
+                                    PageProcessingResultDto.success(pageUrl, parsed.title(), parsed.content(), parsed.links()))
+                            : pipeline.persist(() -> persist(target, parsed, startTime)))
+                    .exceptionally(e -> failed(pageUrl, e));
         } catch (IOException e) {
             logger.error("❌ Ошибка загрузки {}: {}", pageUrl, e.getMessage());
-            return Optional.empty();
+            return error(pageUrl, 0, e.getMessage());
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
-            logger.error("⛔ Прервана загрузка {}", pageUrl);
-            return Optional.empty();
+            logger.debug("Загрузка {} прервана", pageUrl);
+            return error(pageUrl, 0, "Загрузка прервана");
         } catch (Exception e) {
             logger.error("🔥 Неожиданная ошибка при обработке {}: {}",
                     pageUrl, e.getMessage(), e);
-            return Optional.empty();
+            return error(pageUrl, 0, e.getMessage());
+        }
+    }
+
+
+    /**
+     * Куда и с какими валидаторами сохраняется загруженная страница.
+     */
+    private record StoredPage(Site site, String pageUrl, String path, Page oldPage,
+                              String etag, String lastModified) {
+    }
+
+
+    /**
+     * Результат этапа разбора. {@code lemmas == null} — содержимое не изменилось, запись не нужна.
+     */
+    private record ParsedPage(String content, String contentHash, String title, String text, Set<String> links,
+                              Map<String, Integer> lemmas) {
+    }
+
+
+    /**
+     * Этап разбора: HTML, текст, ссылки и леммы. Выполняется в пуле {@code analyze}.
+     */
+    private ParsedPage analyze(Document doc, StoredPage target) {
+        String content = doc.html();
+        String contentHash = sha256(content);
+        String title = doc.title();
+        Set<String> links = linkExtractor.extractLinks(doc, target.site().getUrl());
+        Page oldPage = target.oldPage();
+        if (oldPage != null && contentHash.equals(oldPage.getContentHash())) {
+            logger.debug("♻️ Содержимое страницы не изменилось: {}", target.path());
+            return new ParsedPage(content, contentHash, title, null, links, null);
+        }
+        String text = doc.body().text();
+        logger.debug("Контент: HTML={} байт, TEXT={} символов", content.length(), text.length());
+        if (text.length() < 100) {
+            logger.warn("⚠️ Мало текста на странице {}: {} символов", target.pageUrl(), text.length());
+        }
+        Map<String, Integer> textLemmas = lemmatizer.getLemmasFrequency(text);
+        Map<String, Integer> titleLemmas = lemmatizer.getLemmasFrequency(title);
+        titleLemmas.forEach((lemma, count) ->
+                textLemmas.merge(lemma, count * 2, Integer::sum));
+        return new ParsedPage(content, contentHash, title, text, links, textLemmas);
+    }
+
+
+    /**
+     * Этап записи: замена старой версии страницы, леммы и индекс одной транзакцией. Выполняется в пуле {@code persist}.
+     */
+    private PageProcessingResultDto persist(StoredPage target, ParsedPage parsed, long startTime) {
+        String pageUrl = target.pageUrl();
+        Site site = target.site();
+        if (!indexingState.isActive()) {
+            logger.debug("Индексация остановлена перед сохранением страницы");
+            return PageProcessingResultDto.error(pageUrl, 0, "Индексация остановлена");
+        }
+        if (target.oldPage() != null) {
+            logger.debug("Страница уже существует, обновляем: {}", target.path());
+        }
+        Page page = new Page(target.path(), 200, site);
+        page.setEtag(target.etag());
+        page.setLastModified(target.lastModified());
+        page.setContentHash(parsed.contentHash());
+        page.setTitle(parsed.title());
+        page.setPlainText(parsed.text());
+        int lemmaCount = pageService.saveIndexed(target.oldPage(), page, parsed.content(), parsed.lemmas());
+        long duration = System.currentTimeMillis() - startTime;
+        logger.info("✅ Страница обработана: {} ({} лемм, {} ссылок, {} мс)",
+                target.path(), lemmaCount, parsed.links().size(), duration);
+        return PageProcessingResultDto.success(pageUrl, parsed.title(), parsed.content(), parsed.links());
+    }
+
+
+    private static CompletableFuture<PageProcessingResultDto> error(String pageUrl, int statusCode, String error) {
+        return CompletableFuture.completedFuture(PageProcessingResultDto.error(pageUrl, statusCode, error));
+    }
+
+
+    private static PageProcessingResultDto failed(String pageUrl, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof InterruptedException) {
+            return PageProcessingResultDto.error(pageUrl, 0, "Загрузка прервана");
+        }
+        logger.error("🔥 Ошибка конвейера при обработке {}: {}", pageUrl, cause.getMessage(), cause);
+        return PageProcessingResultDto.error(pageUrl, 0, cause.getMessage());
+    }
+
+
+    private PageFetcher pageFetcher() {
+        return crawlerConfig.isHttpClientFetcher() ? httpClientFetcher : jsoupFetcher;
+    }
+
+
+    /**
+     * Страница не изменилась: индекс не трогаем, ссылки берём из сохранённой версии,
+     * чтобы обход продолжился вглубь.
+     */
+    private PageProcessingResultDto unchanged(Page page, String pageUrl, Site site) {
+        String content = pageService.findContent(page).orElse("");
+        Document doc = Jsoup.parse(content, pageUrl);
+        Set<String> links = linkExtractor.extractLinks(doc, site.getUrl());
+        return PageProcessingResultDto.success(pageUrl, doc.title(), content, links);
+    }
+
+
+    private void deletePage(Page page) {
+        try {
+            pageService.deleteIndexed(page);
+        } catch (Exception e) {
+            logger.warn("Ошибка при удалении старой версии: {}", e.getMessage());
+        }
+    }
+
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
         }
     }
 }
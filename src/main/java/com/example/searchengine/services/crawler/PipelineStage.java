@@ -0,0 +1,85 @@
+package com.example.searchengine.services.crawler;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Этап конвейера обработки страниц: свой пул потоков и ограниченная очередь.
+ * Когда очередь заполнена, {@link #submit(Callable)} блокирует вызывающий поток —
+ * так медленный этап притормаживает предыдущие вплоть до загрузчиков.
+ */
+final class PipelineStage {
+
+    private final String name;
+    private final int threads;
+    private final int capacity;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final AtomicInteger waitingProducers = new AtomicInteger();
+
+    PipelineStage(String name, int threads, int capacity) {
+        this.name = name;
+        this.threads = Math.max(1, threads);
+        this.capacity = Math.max(1, capacity);
+        this.slots = new Semaphore(this.threads + this.capacity);
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread t = new Thread(r, "pipeline-" + name + "-" + counter.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+
+    /**
+     * Ставит задачу в очередь этапа, при заполненной очереди ждёт свободного места.
+     * Если ожидание прервано, возвращает завершённый с ошибкой результат.
+     */
+    <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (!slots.tryAcquire()) {
+            waitingProducers.incrementAndGet();
+            try {
+                slots.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+                return result;
+            } finally {
+                waitingProducers.decrementAndGet();
+            }
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(task.call());
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            slots.release();
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+
+    IndexingPipeline.StageStats stats() {
+        return new IndexingPipeline.StageStats(name, threads, executor.getActiveCount(),
+                executor.getQueue().size(), capacity, waitingProducers.get(), executor.getCompletedTaskCount());
+    }
+
+
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.searchengine.services.crawler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Правила robots.txt для группы {@code User-agent: *}.
+ * Побеждает самое длинное совпавшее правило, при равной длине — Allow.
+ */
+final class RobotsRules {
+
+    static final RobotsRules ALLOW_ALL = new RobotsRules(List.of(), 0, List.of());
+
+    private record Rule(String pattern, boolean allow) {
+    }
+
+    private final List<Rule> rules;
+    private final long crawlDelayMs;
+    private final List<String> sitemaps;
+
+    private RobotsRules(List<Rule> rules, long crawlDelayMs, List<String> sitemaps) {
+        this.rules = rules;
+        this.crawlDelayMs = crawlDelayMs;
+        this.sitemaps = sitemaps;
+    }
+
+
+    static RobotsRules parse(String robotsTxt) {
+        List<Rule> rules = new ArrayList<>();
+        List<String> sitemaps = new ArrayList<>();
+        long crawlDelayMs = 0;
+        boolean inOurGroup = false;
+        boolean groupHasRules = false;
+        for (String rawLine : robotsTxt.split("\r?\n|\r")) {
+            int comment = rawLine.indexOf('#');
+            String line = (comment >= 0 ? rawLine.substring(0, comment) : rawLine).trim();
+            int colon = line.indexOf(':');
+            if (colon <= 0) {
+                continue;
+            }
+            String field = line.substring(0, colon).trim().toLowerCase(Locale.ROOT);
+            String value = line.substring(colon + 1).trim();
+            switch (field) {
+                case "user-agent" -> {
+                    if (groupHasRules) {
+                        inOurGroup = false;
+                        groupHasRules = false;
+                    }
+                    inOurGroup |= value.equals("*");
+                }
+                case "allow", "disallow" -> {
+                    groupHasRules = true;
+                    if (inOurGroup && !value.isEmpty()) {
+                        rules.add(new Rule(value, field.equals("allow")));
+                    }
+                }
+                case "crawl-delay" -> {
+                    groupHasRules = true;
+                    if (inOurGroup) {
+                        try {
+                            crawlDelayMs = (long) (Double.parseDouble(value) * 1000);
+                        } catch (NumberFormatException ignored) {
+                            // некорректное значение игнорируем, как и большинство поисковиков
+                        }
+                    }
+                }
+                case "sitemap" -> {
+                    if (!value.isEmpty()) {
+                        sitemaps.add(value);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return new RobotsRules(List.copyOf(rules), crawlDelayMs, List.copyOf(sitemaps));
+    }
+
+
+    /**
+     * @param path путь с query-строкой, например {@code /catalog?page=2}
+     */
+    boolean isAllowed(String path) {
+        Rule best = null;
+        for (Rule rule : rules) {
+            if (matches(rule.pattern(), path) && (best == null
+                    || rule.pattern().length() > best.pattern().length()
+                    || rule.pattern().length() == best.pattern().length() && rule.allow())) {
+                best = rule;
+            }
+        }
+        return best == null || best.allow();
+    }
+
+
+    /**
+     * @return путь с query-строкой из абсолютного URL, как его сопоставляет robots.txt
+     */
+    static String requestPath(String url) {
+        int schemeEnd = url.indexOf("://");
+        int pathStart = url.indexOf('/', schemeEnd >= 0 ? schemeEnd + 3 : 0);
+        if (pathStart < 0) {
+            return "/";
+        }
+        int fragment = url.indexOf('#', pathStart);
+        return fragment >= 0 ? url.substring(pathStart, fragment) : url.substring(pathStart);
+    }
+
+
+    long getCrawlDelayMs() {
+        return crawlDelayMs;
+    }
+
+
+    List<String> getSitemaps() {
+        return sitemaps;
+    }
+
+
+    /**
+     * Сопоставление с учётом {@code *} (любая последовательность) и {@code $} (конец пути).
+     */
+    private static boolean matches(String pattern, String path) {
+        boolean anchored = pattern.endsWith("$");
+        String body = anchored ? pattern.substring(0, pattern.length() - 1) : pattern;
+        String[] parts = body.split("\\*", -1);
+        if (!path.startsWith(parts[0])) {
+            return false;
+        }
+        int pos = parts[0].length();
+        for (int i = 1; i < parts.length; i++) {
+            boolean last = i == parts.length - 1;
+            int found = last && anchored ? path.lastIndexOf(parts[i]) : path.indexOf(parts[i], pos);
+            if (found < pos) {
+                return false;
+            }
+            pos = found + parts[i].length();
+        }
+        return !anchored || pos == path.length();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.searchengine.services.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Загружает и кеширует robots.txt по хостам.
+ */
+@Component
+public class RobotsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RobotsService.class);
+    private static final long CACHE_TTL = 24 * 60 * 60 * 1000L;
+    private static final int MAX_ROBOTS_SIZE = 512 * 1024;
+
+    private record CachedRules(RobotsRules rules, long fetchedAt) {
+    }
+
+    private final HttpClientPageFetcher fetcher;
+    private final Map<String, CachedRules> cache = new ConcurrentHashMap<>();
+
+    public RobotsService(HttpClientPageFetcher fetcher) {
+        this.fetcher = fetcher;
+    }
+
+
+    RobotsRules rulesFor(String siteUrl) {
+        String host = HostPolitenessScheduler.hostOf(siteUrl);
+        CachedRules cached = cache.get(host);
+        if (cached != null && System.currentTimeMillis() - cached.fetchedAt() < CACHE_TTL) {
+            return cached.rules();
+        }
+        RobotsRules rules = fetch(robotsUrl(siteUrl));
+        cache.put(host, new CachedRules(rules, System.currentTimeMillis()));
+        return rules;
+    }
+
+
+    private RobotsRules fetch(String robotsUrl) {
+        try (InputStream body = fetcher.openStream(robotsUrl)) {
+            if (body == null) {
+                logger.info("🤖 {} не найден, ограничений нет", robotsUrl);
+                return RobotsRules.ALLOW_ALL;
+            }
+            String text = new String(body.readNBytes(MAX_ROBOTS_SIZE), StandardCharsets.UTF_8);
+            RobotsRules rules = RobotsRules.parse(text);
+            logger.info("🤖 Загружен {}: Crawl-delay {} мс, sitemap: {}",
+                    robotsUrl, rules.getCrawlDelayMs(), rules.getSitemaps().size());
+            return rules;
+        } catch (IOException | IllegalArgumentException e) {
+            logger.warn("Не удалось загрузить {}: {}", robotsUrl, e.getMessage());
+            return RobotsRules.ALLOW_ALL;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return RobotsRules.ALLOW_ALL;
+        }
+    }
+
+
+    private static String robotsUrl(String siteUrl) {
+        String base = siteUrl.endsWith("/") ? siteUrl.substring(0, siteUrl.length() - 1) : siteUrl;
+        int pathStart = base.indexOf('/', base.indexOf("://") + 3);
+        return (pathStart > 0 ? base.substring(0, pathStart) : base) + "/robots.txt";
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.searchengine.services.crawler;
 
 import com.example.searchengine.config.CrawlerConfig;
+import jakarta.annotation.PreDestroy;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.openqa.selenium.WebDriver;
@@ -41,54 +42,32 @@ public class SeleniumFetcher {
             "detmir.ru"
     );
 
-    private static final int MAX_CONCURRENT_BROWSERS_SINGLE = 2;
-    private static final int MAX_CONCURRENT_BROWSERS_MULTI = 3;
-    private final Semaphore browserSemaphore;
+    private final ResizableSemaphore browserSemaphore = new ResizableSemaphore();
+    private final BrowserPool browserPool;
+    private int browserLimit;
 
 
     public SeleniumFetcher(CrawlerConfig crawlerConfig) {
         this.crawlerConfig = crawlerConfig;
-        int maxBrowsers = crawlerConfig.getCurrentMode().contains("МУЛЬТИ")
-                ? MAX_CONCURRENT_BROWSERS_MULTI
-                : MAX_CONCURRENT_BROWSERS_SINGLE;
-        this.browserSemaphore = new Semaphore(maxBrowsers, true);
-        logger.info("🔄 SeleniumFetcher: максимум {} параллельных браузеров", maxBrowsers);
+        this.browserPool = new BrowserPool(this::createDriver, crawlerConfig.getMaxConcurrentBrowsers());
+        updateConcurrencyLimit();
     }
 
 
     public Document fetchWithBrowser(String url) {
         logger.debug("🚀 Ожидание доступа к браузеру для: {}", url);
         boolean acquired = false;
-        WebDriver driver = null;
+        BrowserPool.Browser browser = null;
+        boolean broken = false;
         try {
             acquired = browserSemaphore.tryAcquire(30, TimeUnit.SECONDS);
             if (!acquired) {
                 logger.warn("⏱ Таймаут ожидания браузера (30 сек) для {}", url);
                 return null;
             }
-            logger.debug("✅ Доступ получен, запуск Chrome для: {}", url);
-            ChromeOptions options = new ChromeOptions();
-            System.setProperty("webdriver.chrome.driver", "D:\\My ProGramms\\chromedriver-win64\\chromedriver.exe");
-            options.addArguments("--headless");
-            options.addArguments("--disable-gpu");
-            options.addArguments("--no-sandbox");
-            options.addArguments("--disable-dev-shm-usage");
-            options.addArguments("--disable-extensions");
-            options.addArguments("--disable-images");
-            options.addArguments("--blink-settings=imagesEnabled=false");
-            options.addArguments("--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) " +
-                    "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
-            options.addArguments("--lang=ru-RU");
-            options.addArguments("--accept-lang=ru-RU,ru;q=0.9");
-            int timeoutSeconds = crawlerConfig.getTimeout() / 1000;
-            options.setPageLoadTimeout(Duration.ofSeconds(timeoutSeconds));
             long startTime = System.currentTimeMillis();
-            logger.debug("⏱ Создание ChromeDriver...");
-            driver = new ChromeDriver(options);
-            logger.debug("✅ ChromeDriver создан за {} мс", System.currentTimeMillis() - startTime);
-            driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(timeoutSeconds));
-            driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(3));
-            driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(5));
+            browser = browserPool.lease();
+            WebDriver driver = browser.driver();
             logger.debug("⏱ Загрузка страницы: {}", url);
             driver.get(url);
             int delay = crawlerConfig.getRandomDelay();
@@ -98,23 +77,21 @@ public class SeleniumFetcher {
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
                 logger.warn("⏹ Ожидание прервано для {}", url);
+                broken = true;
                 return null;
             }
             logger.debug("⏱ Получение HTML...");
             String pageSource = driver.getPageSource();
             logger.debug("✅ Получен HTML, размер: {} байт за {} мс",
                     pageSource.length(), System.currentTimeMillis() - startTime);
-            return Jsoup.parse(pageSource);
+            return Jsoup.parse(pageSource, url);
         } catch (Exception e) {
             logger.error("❌ Ошибка Selenium для {}: {}", url, e.getMessage());
+            broken = true;
             return null;
         } finally {
-            if (driver != null) {
-                try {
-                    driver.quit();
-                } catch (Exception e) {
-                    logger.error("❌ Ошибка при закрытии Chrome: {}", e.getMessage());
-                }
+            if (browser != null) {
+                browserPool.release(browser, broken);
             }
             if (acquired) {
                 browserSemaphore.release();
@@ -124,6 +101,45 @@ public class SeleniumFetcher {
     }
 
 
+    /**
+     * Закрывает простаивающие браузеры, когда обходов с JS-сайтами больше нет.
+     */
+    public void closeIdleBrowsers() {
+        browserPool.closeIdle();
+    }
+
+
+    @PreDestroy
+    public void destroy() {
+        browserPool.close();
+    }
+
+
+    private WebDriver createDriver() {
+        logger.debug("⏱ Создание ChromeDriver...");
+        ChromeOptions options = new ChromeOptions();
+        System.setProperty("webdriver.chrome.driver", "D:\\My ProGramms\\chromedriver-win64\\chromedriver.exe");
+        options.addArguments("--headless");
+        options.addArguments("--disable-gpu");
+        options.addArguments("--no-sandbox");
+        options.addArguments("--disable-dev-shm-usage");
+        options.addArguments("--disable-extensions");
+        options.addArguments("--disable-images");
+        options.addArguments("--blink-settings=imagesEnabled=false");
+        options.addArguments("--user-agent=Mozilla/5.0 (Windows NT 10.0; Win64; x64) " +
+                "AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36");
+        options.addArguments("--lang=ru-RU");
+        options.addArguments("--accept-lang=ru-RU,ru;q=0.9");
+        int timeoutSeconds = crawlerConfig.getTimeout() / 1000;
+        options.setPageLoadTimeout(Duration.ofSeconds(timeoutSeconds));
+        WebDriver driver = new ChromeDriver(options);
+        driver.manage().timeouts().pageLoadTimeout(Duration.ofSeconds(timeoutSeconds));
+        driver.manage().timeouts().implicitlyWait(Duration.ofSeconds(3));
+        driver.manage().timeouts().scriptTimeout(Duration.ofSeconds(5));
+        return driver;
+    }
+
+
     public boolean shouldUseBrowser(String url) {
         for (String site : JS_HEAVY_SITES) {
             if (url.contains(site)) {
@@ -136,11 +152,39 @@ public class SeleniumFetcher {
     }
 
 
-    public void updateConcurrencyLimit() {
-        int newLimit = crawlerConfig.getCurrentMode().contains("МУЛЬТИ")
-                ? MAX_CONCURRENT_BROWSERS_MULTI
-                : MAX_CONCURRENT_BROWSERS_SINGLE;
-        logger.info("⚠️ Текущий лимит браузеров: {} (режим: {})",
+    /**
+     * Подстраивает число браузеров под текущий профиль {@link CrawlerConfig}; вызывается при смене режима.
+     * Уменьшение не ждёт занятых браузеров: разрешения уходят в минус и гасятся по мере их возврата.
+     */
+    public synchronized void updateConcurrencyLimit() {
+        int newLimit = crawlerConfig.getMaxConcurrentBrowsers();
+        if (newLimit == browserLimit) {
+            return;
+        }
+        if (newLimit > browserLimit) {
+            browserSemaphore.release(newLimit - browserLimit);
+        } else {
+            browserSemaphore.reducePermits(browserLimit - newLimit);
+        }
+        browserLimit = newLimit;
+        browserPool.resize(newLimit);
+        logger.info("🔄 SeleniumFetcher: максимум {} параллельных браузеров (режим: {})",
                 newLimit, crawlerConfig.getCurrentMode());
     }
-}
\ No newline at end of file
+
+
+    /**
+     * Семафор, число разрешений которого можно уменьшить без ожидания.
+     */
+    private static final class ResizableSemaphore extends Semaphore {
+
+        ResizableSemaphore() {
+            super(0, true);
+        }
+
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
@@ -1,116 +1,178 @@
 package com.example.searchengine.services.crawler;
 
 import com.example.searchengine.config.CrawlerConfig;
+import com.example.searchengine.dto.adminLogs.PageProcessingResultDto;
 import com.example.searchengine.models.Site;
-import com.example.searchengine.models.Page;
 import com.example.searchengine.models.Status;
+import com.example.searchengine.services.LemmaService;
 import com.example.searchengine.services.PageService;
 import com.example.searchengine.services.SiteService;
 import com.example.searchengine.services.indexing.IndexingState;
-import com.example.searchengine.utils.UrlFilter;
+import com.example.searchengine.utils.UrlClassifier;
+import com.example.searchengine.utils.UrlVerdict;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class SiteCrawler {
     private static final Logger logger = LoggerFactory.getLogger(SiteCrawler.class);
     private static final long MAX_IDLE_TIME = 300000;
+    private static final long STOP_GRACE_PERIOD = 30000;
 
     private final PageProcessor pageProcessor;
-    private final LinkExtractor linkExtractor;
     private final PageService pageService;
+    private final LemmaService lemmaService;
     private final SiteService siteService;
     private final CrawlerConfig crawlerConfig;
-    private final UrlFilter urlFilter;
+    private final UrlClassifier urlClassifier;
     private final IndexingState indexingState;
     private final WatchdogService watchdogService;
+    private final HostPolitenessScheduler politenessScheduler;
+    private final HostConcurrencyController concurrencyController;
+    private final RobotsService robotsService;
+    private final SitemapReader sitemapReader;
 
-    private final Map<Long, Set<String>> visitedUrls = new ConcurrentHashMap<>();
-    private final Map<Long, AtomicBoolean> stopFlags = new ConcurrentHashMap<>();
-    private final Map<Long, AtomicInteger> pageCounters = new ConcurrentHashMap<>();
-    private final Map<Long, AtomicInteger> errorCounters = new ConcurrentHashMap<>();
-    private final Map<Long, AtomicLong> lastActivityTime = new ConcurrentHashMap<>();
+    private final Map<Long, CrawlSession> sessions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService crawlTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "crawl-timer");
+        t.setDaemon(true);
+        return t;
+    });
 
 
     @Autowired
     public SiteCrawler(PageProcessor pageProcessor,
-                       LinkExtractor linkExtractor,
                        PageService pageService,
+                       LemmaService lemmaService,
                        SiteService siteService,
                        CrawlerConfig crawlerConfig,
-                       UrlFilter urlFilter,
+                       UrlClassifier urlClassifier,
                        IndexingState indexingState,
-                       WatchdogService watchdogService) {
+                       WatchdogService watchdogService,
+                       HostPolitenessScheduler politenessScheduler,
+                       HostConcurrencyController concurrencyController,
+                       RobotsService robotsService,
+                       SitemapReader sitemapReader) {
         this.pageProcessor = pageProcessor;
-        this.linkExtractor = linkExtractor;
         this.pageService = pageService;
+        this.lemmaService = lemmaService;
         this.siteService = siteService;
         this.crawlerConfig = crawlerConfig;
-        this.urlFilter = urlFilter;
+        this.urlClassifier = urlClassifier;
         this.indexingState = indexingState;
         this.watchdogService = watchdogService;
+        this.politenessScheduler = politenessScheduler;
+        this.concurrencyController = concurrencyController;
+        this.robotsService = robotsService;
+        this.sitemapReader = sitemapReader;
     }
 
 
-    public void crawl(Site site, ForkJoinPool pool) {
+    /**
+     * @return {@code true}, если очередь сайта обработана полностью и обход не был остановлен
+     */
+    boolean crawl(Site site, CrawlScheduler.Lease lease, boolean incremental) {
         Long siteId = site.getId();
         String siteUrl = site.getUrl();
-        urlFilter.clearVisitedBaseUrls();
-        visitedUrls.putIfAbsent(siteId, ConcurrentHashMap.newKeySet());
-        stopFlags.putIfAbsent(siteId, new AtomicBoolean(false));
-        pageCounters.putIfAbsent(siteId, new AtomicInteger(0));
-        errorCounters.putIfAbsent(siteId, new AtomicInteger(0));
-        lastActivityTime.putIfAbsent(siteId, new AtomicLong(System.currentTimeMillis()));
-        AtomicBoolean stopFlag = stopFlags.get(siteId);
-        Set<String> visited = visitedUrls.get(siteId);
-        AtomicInteger counter = pageCounters.get(siteId);
-        AtomicInteger errorCounter = errorCounters.get(siteId);
-        AtomicLong lastActivity = lastActivityTime.get(siteId);
-        if (shouldStop(stopFlag, siteId)) {
+        CrawlFrontier frontier;
+        try {
+            frontier = CrawlFrontier.open(frontierDir(site), crawlerConfig.getQueueCapacity(), canResume(site));
+        } catch (IOException e) {
+            logger.error("❌ Не удалось открыть очередь обхода сайта {}: {}", siteUrl, e.getMessage());
+            siteService.updateStatusWithError(site, "Ошибка очереди обхода: " + e.getMessage());
+            return false;
+        }
+        if (frontier.isResumed()) {
+            logger.info("♻️ Продолжаем прерванный обход сайта {}: в очереди {} URL", siteUrl, frontier.size());
+        } else {
+            frontier.offer(siteUrl, 0);
+        }
+        HostConcurrencyController.Limit limit =
+                concurrencyController.limitFor(siteId, HostPolitenessScheduler.hostOf(siteUrl), lease.maxInFlight());
+        lease.attach(limit);
+        CrawlSession session = new CrawlSession(site, lease.executor(), frontier, limit,
+                incremental, urlClassifier.forSite(siteUrl));
+        sessions.put(siteId, session);
+        if (shouldStop(session)) {
             logger.info("Индексация остановлена для сайта {}", siteUrl);
-            stopFlag.set(true);
-            return;
+            session.stop();
+            sessions.remove(siteId, session);
+            frontier.close();
+            return false;
         }
-        long expectedPages = estimateExpectedPages(siteUrl);
-        logger.info("🔥 Начало обхода сайта: {} (ID: {}), ожидаемое кол-во страниц: ~{}",
-                siteUrl, siteId, expectedPages);
-        watchdogService.startWatching(site, siteService, pageService, () -> {
+        VisitedUrlSet stored = incremental ? session.getStoredPages() : session.getVisited();
+        pageService.forEachPathBySite(site, stored::add);
+        if (stored.size() > 0) {
+            logger.info("📚 В БД уже есть {} страниц сайта {}, {}", stored.size(), siteUrl,
+                    incremental ? "они будут перепроверены условными запросами"
+                            : "они не будут загружаться повторно");
+        }
+        seed(session);
+        logger.info("🔥 Начало обхода сайта: {} (ID: {}), страниц в sitemap: {}, параллельно страниц: {}",
+                siteUrl, siteId, session.getExpectedPages() > 0 ? session.getExpectedPages() : "неизвестно",
+                lease.maxInFlight());
+        watchdogService.startWatching(session, () -> {
             logger.info("🛑 Watchdog инициировал остановку для сайта {}", siteUrl);
-            stopFlag.set(true);
+            session.stop();
         });
+        boolean completed = false;
         try {
-            lastActivity.set(System.currentTimeMillis());
-            logProgress(site, counter, errorCounter);
-            crawlPage(site, site.getUrl(), 0, visited, stopFlag, counter,
-                    errorCounter, lastActivity);
-            boolean quiescent = pool.awaitQuiescence(30, TimeUnit.SECONDS);
+            session.touch();
+            logProgress(session);
+            boolean drained = dispatch(session);
+            boolean quiescent = drained || session.awaitIdle(STOP_GRACE_PERIOD);
             if (!quiescent) {
-                logger.warn("⚠️ Пул не успокоился за 30 секунд для сайта {}, принудительное завершение",
+                logger.warn("⚠️ Обход не завершился за 30 секунд после остановки для сайта {}, принудительное завершение",
                         siteUrl);
-                pool.shutdownNow();
+                session.interruptWorkers();
+            }
+            completed = drained && quiescent && !shouldStop(session);
+            if (quiescent) {
+                lemmaService.flushFrequencies(site);
             }
-            checkAndFinalizeCrawling(site, siteId, stopFlag, quiescent, counter);
+            checkAndFinalizeCrawling(session, quiescent);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("⛔ Ожидание обхода сайта {} прервано", siteUrl);
+            session.stop();
+            completed = false;
         } catch (Exception e) {
             logger.error("❌ Ошибка при обходе сайта {}: {}", siteUrl, e.getMessage(), e);
             siteService.updateStatusWithError(site, "Ошибка обхода: " + e.getMessage());
+            completed = false;
         } finally {
-            cleanup(site, siteId);
+            if (completed) {
+                frontier.discard();
+            } else {
+                frontier.close();
+                logger.info("💾 Состояние обхода сайта {} сохранено: в очереди {} URL", siteUrl, frontier.size());
+            }
+            cleanup(session);
         }
+        return completed;
+    }
+
+
+    /**
+     * Есть ли у сайта сохранённый прерванный обход, который будет продолжен вместо обхода с нуля.
+     */
+    public boolean canResume(Site site) {
+        return crawlerConfig.isResumeInterrupted() && CrawlFrontier.hasCheckpoint(frontierDir(site));
     }
 
 
     public void stopCrawling(Long siteId) {
-        AtomicBoolean stopFlag = stopFlags.get(siteId);
-        if (stopFlag != null) {
-            stopFlag.set(true);
+        CrawlSession session = sessions.get(siteId);
+        if (session != null) {
+            session.stop();
             logger.info("⛔ Остановлен обход сайта ID: {}", siteId);
         }
     }
@@ -118,70 +180,152 @@ public class SiteCrawler {
 
     public void stopAllCrawling() {
         logger.info("⛔ Остановка всех обходов...");
-        stopFlags.values().forEach(flag -> flag.set(true));
-        stopFlags.clear();
-        visitedUrls.clear();
-        pageCounters.clear();
-        errorCounters.clear();
-        lastActivityTime.clear();
-        urlFilter.clearVisitedBaseUrls();
+        sessions.values().forEach(CrawlSession::stop);
+        sessions.clear();
         logger.info("🧹 Ресурсы очищены для всех сайтов");
     }
 
 
     public Map<Long, Integer> getProgress() {
         Map<Long, Integer> progress = new HashMap<>();
-        pageCounters.forEach((id, counter) -> progress.put(id, counter.get()));
+        sessions.forEach((id, session) -> progress.put(id, session.getPageCounter().get()));
         return progress;
     }
 
 
     public Map<Long, Integer> getErrorCounts() {
         Map<Long, Integer> errors = new HashMap<>();
-        errorCounters.forEach((id, counter) -> errors.put(id, counter.get()));
+        sessions.forEach((id, session) -> errors.put(id, session.getErrorCounter().get()));
         return errors;
     }
 
 
-    private long estimateExpectedPages(String siteUrl) {
-        if (siteUrl.contains("playback.ru")) {
-            return 500;
-        } else if (siteUrl.contains("skillbox.ru")) {
-            return 1000;
-        } else if (siteUrl.contains("lenta.ru")) {
-            return 5000;
+    @PreDestroy
+    public void destroy() {
+        crawlTimer.shutdownNow();
+    }
+
+
+    /**
+     * Загружает robots.txt (Disallow, Crawl-delay) и кладёт в очередь URL из sitemap,
+     * чтобы с первых минут обхода было достаточно независимых страниц для параллельной загрузки.
+     */
+    private void seed(CrawlSession session) {
+        String siteUrl = session.getSite().getUrl();
+        RobotsRules robots = crawlerConfig.isRespectRobots()
+                ? robotsService.rulesFor(siteUrl)
+                : RobotsRules.ALLOW_ALL;
+        session.setRobots(robots);
+        politenessScheduler.setCrawlDelay(session.getHost(), robots.getCrawlDelayMs());
+        if (!crawlerConfig.isUseSitemaps() || session.getFrontier().isResumed()) {
+            return;
+        }
+        List<String> sitemaps = robots.getSitemaps().isEmpty()
+                ? List.of(siteUrl.replaceAll("/+$", "") + "/sitemap.xml")
+                : robots.getSitemaps();
+        CrawlFrontier frontier = session.getFrontier();
+        long found = sitemapReader.read(sitemaps, url -> frontier.offer(url, 1));
+        session.setExpectedPages(found);
+        if (found > 0) {
+            logger.info("🗺 Из sitemap сайта {} в очередь добавлено {} URL", siteUrl, found);
         }
-        return 1000;
     }
 
 
-    private void logProgress(Site site, AtomicInteger counter, AtomicInteger errorCounter) {
+    private void logProgress(CrawlSession session) {
+        Site site = session.getSite();
         long currentPages = pageService.countBySite(site);
-        logger.info("📊 ТЕКУЩИЙ ПРОГРЕСС: {} - обработано {} страниц, всего в БД: {}, ошибок: {}",
-                site.getUrl(), counter.get(), currentPages, errorCounter.get());
+        int processed = session.getPageCounter().get();
+        logger.info("📊 ТЕКУЩИЙ ПРОГРЕСС: {} - обработано {} страниц{}, всего в БД: {}, ошибок: {}, в очереди: {}{}",
+                site.getUrl(), processed,
+                session.getExpectedPages() > 0 ? " из ~" + session.getExpectedPages() : "",
+                currentPages, session.getErrorCounter().get(), session.getFrontier().size(),
+                formatEta(session, processed));
+    }
+
+
+    private String formatEta(CrawlSession session, int processed) {
+        long expected = session.getExpectedPages();
+        long elapsed = System.currentTimeMillis() - session.getStartedAt();
+        if (expected <= processed || processed == 0 || elapsed <= 0) {
+            return "";
+        }
+        long etaSeconds = (long) ((expected - processed) * (elapsed / 1000.0) / processed);
+        return String.format(", осталось ~%d мин %d сек", etaSeconds / 60, etaSeconds % 60);
     }
 
 
-    private boolean shouldStop(AtomicBoolean stopFlag, Long siteId) {
-        if (stopFlag.get() || !indexingState.isActive()) {
+    private boolean shouldStop(CrawlSession session) {
+        if (session.isStopped() || !indexingState.isActive()) {
             return true;
         }
-        AtomicLong lastActivity = lastActivityTime.get(siteId);
-        if (lastActivity != null && System.currentTimeMillis() - lastActivity.get() > MAX_IDLE_TIME) {
+        if (System.currentTimeMillis() - session.getLastActivity().get() > MAX_IDLE_TIME) {
             logger.warn("⚠️ Сайт {} не проявлял активности {} минут, останавливаем",
-                    siteId, MAX_IDLE_TIME / 60000);
+                    session.getSiteId(), MAX_IDLE_TIME / 60000);
             return true;
         }
         return false;
     }
 
-    private void checkAndFinalizeCrawling(Site site, Long siteId, AtomicBoolean stopFlag,
-                                          boolean quiescent, AtomicInteger counter) {
-        if (!shouldStop(stopFlag, siteId) && quiescent) {
+
+    private Path frontierDir(Site site) {
+        return Path.of(crawlerConfig.getFrontierDir(), "site-" + site.getId());
+    }
+
+
+    /**
+     * Выбирает URL из очереди в ширину и отдаёт их в пул, пока очередь не опустеет
+     * или обход не будет остановлен.
+     *
+     * @return {@code true}, если очередь обработана полностью
+     */
+    private boolean dispatch(CrawlSession session) throws InterruptedException {
+        CrawlFrontier frontier = session.getFrontier();
+        long nextCheckpoint = System.currentTimeMillis() + crawlerConfig.getCheckInterval();
+        while (true) {
+            if (shouldStop(session)) {
+                session.stop();
+                return false;
+            }
+            if (System.currentTimeMillis() >= nextCheckpoint) {
+                frontier.checkpoint();
+                nextCheckpoint = System.currentTimeMillis() + crawlerConfig.getCheckInterval();
+            }
+            CrawlFrontier.Entry entry = frontier.poll();
+            if (entry == null) {
+                if (session.getPendingPages() == 0 && frontier.isEmpty()) {
+                    return true;
+                }
+                session.awaitProgress(crawlerConfig.getCheckInterval());
+                continue;
+            }
+            String path = admit(session, entry);
+            if (path == null) {
+                frontier.complete(entry);
+                continue;
+            }
+            while (!session.tryAcquirePermit(crawlerConfig.getCheckInterval())) {
+                if (shouldStop(session)) {
+                    session.stop();
+                    return false;
+                }
+            }
+            long waitMs = politenessScheduler.reserve(session.getHost());
+            if (waitMs > 0) {
+                Thread.sleep(waitMs);
+            }
+            submit(session, entry, entry.revisit() || session.getStoredPages().contains(path));
+        }
+    }
+
+
+    private void checkAndFinalizeCrawling(CrawlSession session, boolean quiescent) {
+        Site site = session.getSite();
+        if (!shouldStop(session) && quiescent) {
             long pageCount = pageService.countBySite(site);
-            if (pageCount > 0 && !hasActiveTasks(siteId)) {
+            if (pageCount > 0 && session.getPendingPages() == 0) {
                 logger.info("✅ Обход сайта завершен штатно: {} (обработано {} страниц, всего в БД: {})",
-                        site.getUrl(), counter.get(), pageCount);
+                        site.getUrl(), session.getPageCounter().get(), pageCount);
                 siteService.updateStatus(site, Status.INDEXED);
             } else if (pageCount == 0) {
                 logger.warn("⚠️ Обход сайта {} завершен, но не найдено ни одной страницы",
@@ -192,110 +336,152 @@ public class SiteCrawler {
     }
 
 
-    private void cleanup(Site site, Long siteId) {
+    private void cleanup(CrawlSession session) {
+        Site site = session.getSite();
         logger.info("🧹 Очистка ресурсов для сайта {}", site.getUrl());
-        watchdogService.stopWatching();
-        visitedUrls.remove(siteId);
-        stopFlags.remove(siteId);
-        pageCounters.remove(siteId);
-        errorCounters.remove(siteId);
-        lastActivityTime.remove(siteId);
-        urlFilter.clearVisitedBaseUrls();
+        watchdogService.stopWatching(session);
+        sessions.remove(session.getSiteId(), session);
+        concurrencyController.remove(session.getConcurrency());
         logger.info("🧹 Ресурсы очищены для сайта {}", site.getUrl());
     }
 
 
-    private boolean hasActiveTasks(Long siteId) {
-        return visitedUrls.containsKey(siteId) &&
-                !ForkJoinPool.commonPool().isQuiescent();
+    /**
+     * Поток обхода занят только загрузкой: лимит хоста освобождается сразу после неё,
+     * а запись в очереди и счётчик сессии — когда конвейер сохранит страницу.
+     */
+    private void submit(CrawlSession session, CrawlFrontier.Entry entry, boolean replaceExisting) {
+        session.pageScheduled();
+        try {
+            session.getExecutor().execute(() -> {
+                CompletableFuture<Void> indexed = CompletableFuture.completedFuture(null);
+                session.workerStarted();
+                try {
+                    indexed = fetchPage(session, entry.url(), entry.depth(), replaceExisting);
+                } finally {
+                    session.workerFinished();
+                    session.releasePermit();
+                    indexed.whenComplete((ignored, e) -> finishEntry(session, entry));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            session.releasePermit();
+            finishEntry(session, entry);
+            logger.debug("Страница {} не запланирована: пул обхода остановлен", entry.url());
+        }
+    }
+
+
+    private void finishEntry(CrawlSession session, CrawlFrontier.Entry entry) {
+        session.getFrontier().complete(entry);
+        session.touch();
+        session.pageFinished();
     }
 
 
-    private void crawlPage(Site site, String pageUrl, int depth,
-                           Set<String> visited, AtomicBoolean stopFlag,
-                           AtomicInteger counter, AtomicInteger errorCounter,
-                           AtomicLong lastActivity) {
-        Long siteId = site.getId();
-        String siteUrl = site.getUrl();
-        if (shouldStop(stopFlag, siteId)) {
-            stopFlag.set(true);
-            return;
-        }
-        lastActivity.set(System.currentTimeMillis());
-        watchdogService.notifyActivity();
-        if (counter.get() % 10 == 0 && counter.get() > 0) {
-            logProgress(site, counter, errorCounter);
+    /**
+     * @return нормализованный путь страницы или {@code null}, если загружать её не нужно
+     */
+    private String admit(CrawlSession session, CrawlFrontier.Entry entry) {
+        String pageUrl = entry.url();
+        if (entry.depth() > crawlerConfig.getMaxDepth()) {
+            return null;
         }
-        if (depth > crawlerConfig.getMaxDepth()) {
-            return;
+        UrlVerdict verdict = session.getUrls().classify(pageUrl);
+        if (!isAccepted(verdict, session)) {
+            logger.debug("URL отклонен фильтром: {}", pageUrl);
+            return null;
         }
-        if (!isValidUrlForCrawling(pageUrl, site)) {
-            return;
+        if (!session.getRobots().isAllowed(RobotsRules.requestPath(pageUrl))) {
+            logger.debug("URL запрещён robots.txt: {}", pageUrl);
+            return null;
         }
-        String baseUrl = site.getUrl();
-        String path = urlFilter.normalizePath(pageUrl, baseUrl);
-        if (path.equals("/error-invalid-url") || !visited.add(path)) {
-            return;
+        String path = verdict.normalizedPath();
+        return session.getVisited().add(path) || entry.revisit() ? path : null;
+    }
+
+
+    private CompletableFuture<Void> fetchPage(CrawlSession session, String pageUrl, int depth,
+                                             boolean replaceExisting) {
+        Site site = session.getSite();
+        if (shouldStop(session)) {
+            session.stop();
+            return CompletableFuture.completedFuture(null);
         }
-        if (pageService.existsByPathAndSite(path, site)) {
-            return;
+        int processed = session.getPageCounter().get();
+        if (processed % 10 == 0 && processed > 0) {
+            logProgress(session);
         }
-        logger.info("📄 Обработка страницы [{}] {} (глубина {})",
-                counter.incrementAndGet(), pageUrl, depth);
-        ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<Optional<Page>> future = null;
+        session.touch();
+        CompletableFuture<PageProcessingResultDto> result;
+        long latencyMs;
         try {
-            future = executor.submit(() -> pageProcessor.processPage(site, pageUrl));
-            Optional<Page> page = future.get(crawlerConfig.getTimeout(), TimeUnit.MILLISECONDS);
-            if (page.isEmpty()) {
-                return;
+            logger.info("📄 Обработка страницы [{}] {} (глубина {})",
+                    session.getPageCounter().incrementAndGet(), pageUrl, depth);
+            PageDeadline deadline = new PageDeadline(crawlTimer, crawlerConfig.getTimeout());
+            result = pageProcessor.processPage(site, pageUrl, deadline, replaceExisting);
+            if (!deadline.disarm()) {
+                session.getConcurrency().onOverload();
+                handleTimeout(session, pageUrl);
+                return CompletableFuture.completedFuture(null);
             }
-            urlFilter.addVisitedBaseUrl(pageUrl);
-            siteService.updateStatusTime(site);
-            processPageLinks(site, pageUrl, depth, visited, stopFlag, counter,
-                    errorCounter, lastActivity, baseUrl, path);
-        } catch (TimeoutException e) {
-            handleTimeout(site, pageUrl, future, errorCounter, stopFlag);
+            latencyMs = deadline.elapsedMs();
         } catch (Exception e) {
             logger.error("❌ Ошибка обработки {}: {}", pageUrl, e.getMessage());
-        } finally {
-            executor.shutdownNow();
+            return CompletableFuture.completedFuture(null);
         }
+        return result.thenAccept(page -> {
+            reportLoad(session, page, latencyMs);
+            if (!page.isSuccess()) {
+                return;
+            }
+            session.getVisitedBaseUrls().add(session.getUrls().classify(pageUrl).baseUrl());
+            siteService.updateStatusTime(site);
+            processPageLinks(session, pageUrl, new ArrayList<>(page.getLinks()), depth);
+        }).exceptionally(e -> {
+            logger.error("❌ Ошибка обработки {}: {}", pageUrl, e.getMessage());
+            return null;
+        });
     }
 
 
-    private boolean isValidUrlForCrawling(String pageUrl, Site site) {
-        if (!urlFilter.isValidForCrawling(pageUrl)) {
-            logger.debug("URL невалиден для краулинга: {}", pageUrl);
-            return false;
-        }
-        if (!urlFilter.shouldIndex(pageUrl)) {
-            logger.debug("URL отклонен фильтром: {}", pageUrl);
-            return false;
-        }
-        if (!urlFilter.isSameDomain(pageUrl, site.getUrl())) {
-            return false;
+    /**
+     * Передаёт результат загрузки адаптивному лимиту хоста. Результаты без ответа сервера
+     * (отфильтрованные URL, сетевые ошибки) на лимит не влияют.
+     */
+    private void reportLoad(CrawlSession session, PageProcessingResultDto result, long latencyMs) {
+        int statusCode = result.getStatusCode();
+        if (statusCode == 429 || statusCode >= 500) {
+            session.getConcurrency().onOverload();
+        } else if (statusCode > 0) {
+            session.getConcurrency().onSuccess(latencyMs);
         }
-        return true;
     }
 
 
-    private void processPageLinks(Site site, String pageUrl, int depth,
-                                  Set<String> visited, AtomicBoolean stopFlag,
-                                  AtomicInteger counter, AtomicInteger errorCounter,
-                                  AtomicLong lastActivity, String baseUrl, String path) {
-        Long siteId = site.getId();
-        String siteUrl = site.getUrl();
-        List<String> links = linkExtractor.extractLinks(pageUrl, siteUrl);
+    /**
+     * URL с параметрами не загружаем, если его страница без параметров уже обработана.
+     */
+    private boolean isAccepted(UrlVerdict verdict, CrawlSession session) {
+        return verdict.isAccepted()
+                && !(verdict.hasQuery() && session.getVisitedBaseUrls().contains(verdict.baseUrl()));
+    }
+
+
+    private void processPageLinks(CrawlSession session, String pageUrl, List<String> links, int depth) {
         logger.debug("🔗 Извлечено {} ссылок с {}", links.size(), pageUrl);
         links = limitLinksPerPage(links, pageUrl);
-        if (links.isEmpty() || shouldStop(stopFlag, siteId)) {
+        if (links.isEmpty() || shouldStop(session)) {
             return;
         }
-        List<CrawlTask> subtasks = createSubtasks(site, links, depth + 1, visited,
-                stopFlag, counter, errorCounter, lastActivity);
-        if (!subtasks.isEmpty()) {
-            ForkJoinTask.invokeAll(subtasks);
+        for (String link : links) {
+            if (shouldStop(session)) {
+                session.stop();
+                break;
+            }
+            if (isValidLinkForCrawling(link, session)) {
+                session.getFrontier().offer(link, depth + 1);
+            }
         }
     }
 
@@ -311,89 +497,25 @@ public class SiteCrawler {
     }
 
 
-    private List<CrawlTask> createSubtasks(Site site, List<String> links, int depth,
-                                           Set<String> visited, AtomicBoolean stopFlag,
-                                           AtomicInteger counter, AtomicInteger errorCounter,
-                                           AtomicLong lastActivity) {
-        List<CrawlTask> subtasks = new ArrayList<>();
-        for (String link : links) {
-            if (shouldStop(stopFlag, site.getId())) {
-                stopFlag.set(true);
-                break;
-            }
-            if (isValidLinkForCrawling(link, site, visited)) {
-                subtasks.add(new CrawlTask(site, link, depth, visited,
-                        stopFlag, counter, errorCounter, lastActivity));
-            }
-        }
-        return subtasks;
-    }
-
-
-    private void handleTimeout(Site site, String pageUrl, Future<?> future,
-                               AtomicInteger errorCounter, AtomicBoolean stopFlag) {
-        String siteUrl = site.getUrl();
+    private void handleTimeout(CrawlSession session, String pageUrl) {
+        String siteUrl = session.getSite().getUrl();
         int timeoutSeconds = crawlerConfig.getTimeout() / 1000;
         int errorLimit = crawlerConfig.getErrorLimit();
         logger.error("⏱ ТАЙМАУТ {} - страница не обработана за {} секунд", pageUrl, timeoutSeconds);
-        if (future != null) {
-            future.cancel(true);
-        }
-        int currentErrors = errorCounter.incrementAndGet();
+        int currentErrors = session.getErrorCounter().incrementAndGet();
         if (currentErrors > errorLimit) {
             logger.error("❌ Критическое количество таймаутов ({} > {}) для сайта {}, останавливаем обход",
                     currentErrors, errorLimit, siteUrl);
-            stopFlag.set(true);
+            session.stop();
         } else {
             logger.warn("⚠️ Таймаут #{}/{} для сайта {}", currentErrors, errorLimit, siteUrl);
         }
     }
 
 
-    private boolean isValidLinkForCrawling(String link, Site site, Set<String> visited) {
-        String baseUrl = site.getUrl();
-        if (!urlFilter.isSameDomain(link, baseUrl)) {
-            return false;
-        }
-        if (!urlFilter.isValidForCrawling(link)) {
-            return false;
-        }
-        if (!urlFilter.shouldIndex(link)) {
-            return false;
-        }
-        String path = urlFilter.normalizePath(link, baseUrl);
-        return !visited.contains(path);
+    private boolean isValidLinkForCrawling(String link, CrawlSession session) {
+        UrlVerdict verdict = session.getUrls().classify(link);
+        return isAccepted(verdict, session) && !session.getVisited().contains(verdict.normalizedPath());
     }
 
-
-    private class CrawlTask extends RecursiveAction {
-        private final Site site;
-        private final String url;
-        private final int depth;
-        private final Set<String> visited;
-        private final AtomicBoolean stopFlag;
-        private final AtomicInteger counter;
-        private final AtomicInteger errorCounter;
-        private final AtomicLong lastActivity;
-
-        public CrawlTask(Site site, String url, int depth,
-                         Set<String> visited, AtomicBoolean stopFlag,
-                         AtomicInteger counter, AtomicInteger errorCounter,
-                         AtomicLong lastActivity) {
-            this.site = site;
-            this.url = url;
-            this.depth = depth;
-            this.visited = visited;
-            this.stopFlag = stopFlag;
-            this.counter = counter;
-            this.errorCounter = errorCounter;
-            this.lastActivity = lastActivity;
-        }
-
-        @Override
-        protected void compute() {
-            crawlPage(site, url, depth, visited, stopFlag, counter,
-                    errorCounter, lastActivity);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,107 @@
+package com.example.searchengine.services.crawler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Потоковое чтение sitemap.xml и индексов sitemap (в том числе .gz) через StAX:
+ * URL передаются потребителю по одному, файл целиком в память не загружается.
+ */
+@Component
+public class SitemapReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(SitemapReader.class);
+    private static final int MAX_SITEMAPS = 100;
+
+    private final HttpClientPageFetcher fetcher;
+    private final XMLInputFactory xmlInputFactory;
+
+    public SitemapReader(HttpClientPageFetcher fetcher) {
+        this.fetcher = fetcher;
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+
+    /**
+     * Обходит sitemap и вложенные в индексы sitemap, передавая URL страниц в {@code sink}.
+     *
+     * @return число найденных URL страниц
+     */
+    long read(List<String> sitemapUrls, Consumer<String> sink) {
+        Deque<String> queue = new ArrayDeque<>(sitemapUrls);
+        Set<String> seen = new HashSet<>();
+        long total = 0;
+        while (!queue.isEmpty() && seen.size() < MAX_SITEMAPS) {
+            String sitemapUrl = queue.pollFirst();
+            if (!seen.add(sitemapUrl)) {
+                continue;
+            }
+            try (InputStream body = fetcher.openStream(sitemapUrl)) {
+                if (body == null) {
+                    logger.debug("Sitemap {} недоступен", sitemapUrl);
+                    continue;
+                }
+                long found = parse(body, sink, queue::addLast);
+                logger.info("🗺 Sitemap {}: {} URL", sitemapUrl, found);
+                total += found;
+            } catch (IOException | XMLStreamException | IllegalArgumentException e) {
+                logger.warn("Не удалось прочитать sitemap {}: {}", sitemapUrl, e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return total;
+    }
+
+
+    private long parse(InputStream body, Consumer<String> pageSink, Consumer<String> sitemapSink)
+            throws XMLStreamException {
+        XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(body);
+        long pages = 0;
+        boolean inSitemap = false;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                String name = reader.getLocalName();
+                if (name.equals("sitemap")) {
+                    inSitemap = true;
+                } else if (name.equals("url")) {
+                    inSitemap = false;
+                } else if (name.equals("loc")) {
+                    String loc = reader.getElementText().trim();
+                    if (loc.isEmpty()) {
+                        continue;
+                    }
+                    if (inSitemap) {
+                        sitemapSink.accept(loc);
+                    } else {
+                        pageSink.accept(loc);
+                        pages++;
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.searchengine.services.crawler;
+
+/**
+ * Множество посещённых путей сайта, хранящее вместо строк их 64-битные отпечатки
+ * (открытая адресация, линейное пробирование) — около 16 байт на URL.
+ * Вероятность ложного совпадения для миллиона путей порядка 10⁻⁸,
+ * поэтому повторная проверка по БД не требуется.
+ */
+final class VisitedUrlSet {
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final long EMPTY = 0L;
+
+    private long[] slots = new long[INITIAL_CAPACITY];
+    private int size;
+
+
+    /**
+     * @return {@code true}, если путь ещё не встречался
+     */
+    synchronized boolean add(String path) {
+        long fingerprint = fingerprint(path);
+        if (!insert(slots, fingerprint)) {
+            return false;
+        }
+        if (++size * 2 > slots.length) {
+            grow();
+        }
+        return true;
+    }
+
+
+    synchronized boolean contains(String path) {
+        long fingerprint = fingerprint(path);
+        int mask = slots.length - 1;
+        for (int i = (int) fingerprint & mask; slots[i] != EMPTY; i = (i + 1) & mask) {
+            if (slots[i] == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    synchronized int size() {
+        return size;
+    }
+
+
+    private static boolean insert(long[] table, long fingerprint) {
+        int mask = table.length - 1;
+        int i = (int) fingerprint & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == fingerprint) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = fingerprint;
+        return true;
+    }
+
+
+    private void grow() {
+        long[] grown = new long[slots.length * 2];
+        for (long fingerprint : slots) {
+            if (fingerprint != EMPTY) {
+                insert(grown, fingerprint);
+            }
+        }
+        slots = grown;
+    }
+
+
+    /**
+     * FNV-1a по символам строки с финальным перемешиванием из MurmurHash3.
+     */
+    private static long fingerprint(String path) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < path.length(); i++) {
+            hash ^= path.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+}
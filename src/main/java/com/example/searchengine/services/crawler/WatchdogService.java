@@ -5,172 +5,186 @@ import com.example.searchengine.models.Site;
 import com.example.searchengine.models.Status;
 import com.example.searchengine.services.PageService;
 import com.example.searchengine.services.SiteService;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Следит за зависшими обходами. Каждый сайт регистрируется отдельно, все проверки
+ * выполняет один общий планировщик. Живость обхода определяется по счётчикам сессии,
+ * без обхода потоков JVM; к БД проверка обращается только при простое.
+ */
 @Service
 public class WatchdogService {
 
     private static final Logger logger = LoggerFactory.getLogger(WatchdogService.class);
 
     private final CrawlerConfig crawlerConfig;
+    private final SiteService siteService;
+    private final PageService pageService;
 
     private final long IDLE_TIMEOUT_MS;
     private final long CHECK_INTERVAL_MS;
     private final int MAX_ANALYSIS_ATTEMPTS;
 
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
-    private final AtomicLong lastActivityTime = new AtomicLong(System.currentTimeMillis());
-    private final AtomicBoolean isActive = new AtomicBoolean(true);
-    private final AtomicInteger analysisAttempts = new AtomicInteger(0);
+    private final Map<Long, Watch> watches = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "crawl-watchdog");
+        t.setDaemon(true);
+        return t;
+    });
 
-    private Site currentSite;
-    private SiteService siteService;
-    private PageService pageService;
-    private Runnable onTimeoutAction;
-    private Long siteId;
 
-
-    public WatchdogService(CrawlerConfig crawlerConfig) {
+    public WatchdogService(CrawlerConfig crawlerConfig, SiteService siteService, PageService pageService) {
         this.crawlerConfig = crawlerConfig;
+        this.siteService = siteService;
+        this.pageService = pageService;
         this.IDLE_TIMEOUT_MS = crawlerConfig.getIdleTimeout();
         this.CHECK_INTERVAL_MS = crawlerConfig.getCheckInterval();
         this.MAX_ANALYSIS_ATTEMPTS = crawlerConfig.getMaxAnalysisAttempts();
+        scheduler.scheduleWithFixedDelay(this::checkAll,
+                CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
         logger.info("🕒 Watchdog инициализирован: таймаут={}мс, интервал={}мс, попыток={}",
                 IDLE_TIMEOUT_MS, CHECK_INTERVAL_MS, MAX_ANALYSIS_ATTEMPTS);
     }
 
 
-    public void startWatching(Site site, SiteService siteService,
-                              PageService pageService, Runnable onTimeout) {
-        this.currentSite = site;
-        this.siteId = site.getId();
-        this.siteService = siteService;
-        this.pageService = pageService;
-        this.onTimeoutAction = onTimeout;
-        this.lastActivityTime.set(System.currentTimeMillis());
-        this.isActive.set(true);
-        this.analysisAttempts.set(0);
+    /**
+     * Состояние слежения за одним сайтом. Изменяется только потоком планировщика.
+     */
+    private static final class Watch {
+        private final CrawlSession session;
+        private final Runnable onTimeout;
+        private long lastSeenActivity;
+        private long deferredUntil;
+        private int analysisAttempts;
+
+        private Watch(CrawlSession session, Runnable onTimeout) {
+            this.session = session;
+            this.onTimeout = onTimeout;
+            this.lastSeenActivity = session.getLastActivity().get();
+        }
+    }
+
+
+    void startWatching(CrawlSession session, Runnable onTimeout) {
+        Site site = session.getSite();
+        watches.put(session.getSiteId(), new Watch(session, onTimeout));
         logger.info("🔍 Watchdog запущен для сайта: {} (ID: {}), режим: {}",
-                site.getUrl(), siteId, crawlerConfig.getCurrentMode());
-        scheduler.scheduleAtFixedRate(this::checkActivity,
-                CHECK_INTERVAL_MS, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                site.getUrl(), site.getId(), crawlerConfig.getCurrentMode());
+    }
+
+
+    void stopWatching(CrawlSession session) {
+        if (watches.remove(session.getSiteId()) != null) {
+            logger.info("🛑 Watchdog остановлен для сайта {}", session.getSite().getUrl());
+        }
     }
 
 
-    private void checkActivity() {
-        if (!isActive.get()) {
+    private void checkAll() {
+        for (Watch watch : watches.values()) {
+            try {
+                checkActivity(watch);
+            } catch (Exception e) {
+                logger.error("❌ Watchdog: ошибка проверки сайта {}: {}",
+                        watch.session.getSite().getUrl(), e.getMessage());
+            }
+        }
+    }
+
+
+    private void checkActivity(Watch watch) {
+        CrawlSession session = watch.session;
+        if (session.isStopped()) {
             return;
         }
-        Site currentSiteState = siteService.findById(siteId).orElse(null);
-        if (currentSiteState != null && currentSiteState.getStatus() != Status.INDEXING) {
-            logger.info("🔍 Watchdog: сайт {} уже имеет статус {}, останавливаем слежение",
-                    currentSite.getUrl(), currentSiteState.getStatus());
-            stopWatching();
+        long now = System.currentTimeMillis();
+        long lastActivity = session.getLastActivity().get();
+        if (lastActivity != watch.lastSeenActivity) {
+            watch.lastSeenActivity = lastActivity;
+            watch.analysisAttempts = 0;
+        }
+        if (now < watch.deferredUntil) {
             return;
         }
-        long idleTime = System.currentTimeMillis() - lastActivityTime.get();
+        long idleTime = now - lastActivity;
         if (idleTime > IDLE_TIMEOUT_MS) {
             logger.info("⏰ Watchdog: сайт {} бездействует {} мс (попытка #{})",
-                    currentSite.getUrl(), idleTime, analysisAttempts.incrementAndGet());
-            performAnalysis();
+                    session.getSite().getUrl(), idleTime, ++watch.analysisAttempts);
+            performAnalysis(watch, now);
         }
     }
 
 
-    private void performAnalysis() {
-        boolean hasActiveThreads = hasActiveCrawlerThreads();
-        long pageCount = pageService.countBySite(currentSite);
-        boolean hasErrors = hasSiteErrors();
-        logger.info("📊 Watchdog анализ для {}: страниц={}, активные потоки={}, ошибки={}",
-                currentSite.getUrl(), pageCount, hasActiveThreads, hasErrors);
-        Site refreshedSite = siteService.findById(siteId).orElse(currentSite);
+    private void performAnalysis(Watch watch, long now) {
+        CrawlSession session = watch.session;
+        Site site = siteService.findById(session.getSiteId()).orElse(session.getSite());
+        if (site.getStatus() != Status.INDEXING) {
+            logger.info("🔍 Watchdog: сайт {} уже имеет статус {}, останавливаем слежение",
+                    site.getUrl(), site.getStatus());
+            stopWatching(session);
+            return;
+        }
+        boolean hasWork = hasPendingWork(session);
+        long pageCount = pageService.countBySite(site);
+        logger.info("📊 Watchdog анализ для {}: страниц={}, в работе={}, в очереди={}",
+                site.getUrl(), pageCount, session.getPendingPages(), session.getFrontier().size());
         String currentMode = crawlerConfig.getCurrentMode();
         boolean isMultiMode = currentMode.contains("МУЛЬТИ") || currentMode.contains("MULTI");
-        if (pageCount > 0 && !hasActiveThreads) {
+        if (pageCount > 0 && !hasWork) {
             int minPagesForSuccess = isMultiMode ? 500 : 200;
             if (pageCount < minPagesForSuccess) {
                 logger.warn("⚠️ Watchdog: сайт {} имеет только {} страниц (нужно минимум {}), ждём дальше",
-                        refreshedSite.getUrl(), pageCount, minPagesForSuccess);
-                analysisAttempts.set(0);
-                lastActivityTime.set(System.currentTimeMillis() - IDLE_TIMEOUT_MS + 10000);
+                        site.getUrl(), pageCount, minPagesForSuccess);
+                watch.analysisAttempts = 0;
+                watch.deferredUntil = now + 10000;
                 return;
             }
             logger.info("✅ Watchdog: сайт {} проиндексирован ({} страниц), ставим INDEXED",
-                    refreshedSite.getUrl(), pageCount);
-            siteService.updateStatus(refreshedSite, Status.INDEXED);
-            if (onTimeoutAction != null) {
-                onTimeoutAction.run();
-            }
-            stopWatching();
-        } else if (pageCount == 0 && !hasActiveThreads) {
-            logger.error("❌ Watchdog: сайт {} не проиндексирован, ставим FAILED",
-                    refreshedSite.getUrl());
-            siteService.updateStatusWithError(refreshedSite, "Индексация не дала результатов");
-            stopWatching();
-        } else if (analysisAttempts.get() >= MAX_ANALYSIS_ATTEMPTS) {
+                    site.getUrl(), pageCount);
+            siteService.updateStatus(site, Status.INDEXED);
+            watch.onTimeout.run();
+            stopWatching(session);
+        } else if (pageCount == 0 && !hasWork) {
+            logger.error("❌ Watchdog: сайт {} не проиндексирован, ставим FAILED", site.getUrl());
+            siteService.updateStatusWithError(site, "Индексация не дала результатов");
+            stopWatching(session);
+        } else if (watch.analysisAttempts >= MAX_ANALYSIS_ATTEMPTS) {
             logger.warn("⚠️ Watchdog: превышено количество попыток анализа ({}), принудительное завершение",
                     MAX_ANALYSIS_ATTEMPTS);
             if (pageCount > 0) {
-                siteService.updateStatus(refreshedSite, Status.INDEXED);
+                siteService.updateStatus(site, Status.INDEXED);
             } else {
-                siteService.updateStatusWithError(refreshedSite, "Таймаут индексации");
+                siteService.updateStatusWithError(site, "Таймаут индексации");
             }
-            if (onTimeoutAction != null) {
-                onTimeoutAction.run();
-            }
-            stopWatching();
+            watch.onTimeout.run();
+            stopWatching(session);
         } else {
-            logger.debug("⏳ Watchdog: ждем завершения потоков для сайта {}", refreshedSite.getUrl());
-            lastActivityTime.set(System.currentTimeMillis() - IDLE_TIMEOUT_MS + 5000);
+            logger.debug("⏳ Watchdog: ждем завершения потоков для сайта {}", site.getUrl());
+            watch.deferredUntil = now + 5000;
         }
     }
 
 
-    private boolean hasActiveCrawlerThreads() {
-        return Thread.getAllStackTraces().keySet().stream()
-                .anyMatch(t -> (t.getName().contains("ForkJoinPool") ||
-                        t.getName().contains("CrawlTask") ||
-                        t.getName().startsWith("pool-")) &&
-                        t.getState() == Thread.State.RUNNABLE);
-    }
-
-
-    private boolean hasSiteErrors() {
-        return false;
-    }
-
-
-    public void notifyActivity() {
-        lastActivityTime.set(System.currentTimeMillis());
-        analysisAttempts.set(0);
-        logger.trace("Watchdog: активность зарегистрирована для сайта {}",
-                currentSite != null ? currentSite.getUrl() : "unknown");
+    /**
+     * Есть ли у обхода загружаемые страницы или URL в очереди.
+     * Пул загрузок общий для всех сайтов, поэтому учитывается только счётчик сессии.
+     */
+    private static boolean hasPendingWork(CrawlSession session) {
+        return session.getPendingPages() > 0 || !session.getFrontier().isEmpty();
     }
 
 
-    public void stopWatching() {
-        if (!isActive.getAndSet(false)) {
-            return;
-        }
-        logger.info("🛑 Watchdog остановлен для сайта {}",
-                currentSite != null ? currentSite.getUrl() : "unknown");
-        scheduler.shutdown();
-        try {
-            if (!scheduler.awaitTermination(5, TimeUnit.SECONDS)) {
-                scheduler.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            scheduler.shutdownNow();
-            Thread.currentThread().interrupt();
-        }
+    @PreDestroy
+    public void destroy() {
+        scheduler.shutdownNow();
     }
 }
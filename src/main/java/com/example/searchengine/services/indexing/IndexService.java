@@ -24,20 +24,13 @@ public class IndexService {
         this.indexRepository = indexRepository;
     }
 
+    /**
+     * Добавляет одну строку индекса. Повтор пары страница-лемма нарушает уникальный ключ
+     * (page_id, lemma_id) и завершается ошибкой, а не удваивает ранг.
+     */
     public void save(Page page, Lemma lemma, float rank) {
-        Optional<Index> existing = indexRepository.findByPageAndLemma(page, lemma);
-        if (existing.isPresent()) {
-            Index index = existing.get();
-            index.setRank(index.getRank() + rank);
-            indexRepository.save(index);
-            logger.debug("Обновлен существующий индекс для страницы {} и леммы {}",
-                    page.getId(), lemma.getId());
-        } else {
-            Index index = new Index(page, lemma, rank);
-            indexRepository.save(index);
-            logger.debug("Создан новый индекс для страницы {} и леммы {}",
-                    page.getId(), lemma.getId());
-        }
+        indexRepository.save(new Index(page, lemma, rank));
+        logger.debug("Сохранен индекс для страницы {} и леммы {}", page.getId(), lemma.getId());
     }
 
 
@@ -61,6 +54,18 @@ public class IndexService {
         return indexRepository.findByLemmaInAndPage_Site(lemmas, site);
     }
 
+    /**
+     * Страницы, содержащие все леммы, с суммарным рангом — по убыванию релевантности.
+     */
+    @Transactional(readOnly = true)
+    public List<IndexRepository.PageRelevance> findPagesWithAllLemmas(List<Lemma> lemmas) {
+        if (lemmas.isEmpty()) {
+            return List.of();
+        }
+        List<Long> lemmaIds = lemmas.stream().map(Lemma::getId).distinct().toList();
+        return indexRepository.findPagesWithAllLemmas(lemmaIds, lemmaIds.size());
+    }
+
     public void deleteByPage(Page page) {
         indexRepository.deleteByPage(page);
         logger.debug("Удалены индексы для страницы id={}", page.getId());
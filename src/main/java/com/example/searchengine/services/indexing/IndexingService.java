@@ -1,5 +1,6 @@
 package com.example.searchengine.services.indexing;
 
+import com.example.searchengine.config.CrawlerConfig;
 import com.example.searchengine.config.SitesList;
 import com.example.searchengine.models.Site;
 import com.example.searchengine.models.Status;
@@ -21,33 +22,45 @@ public class IndexingService {
 
     private final SiteService siteService;
     private final PageService pageService;
-    private final LemmaService lemmaService;
-    private final IndexService indexService;
+    private final SiteDataCleaner siteDataCleaner;
+    private final SiteRebuildService siteRebuildService;
     private final CrawlerService crawlerService;
     private final SitesList sitesList;
     private final IndexingState indexingState;
+    private final CrawlerConfig crawlerConfig;
 
-
-    private final ExecutorService indexingExecutor = Executors.newCachedThreadPool(r -> {
-        Thread t = new Thread(r);
-        t.setDaemon(true);
-        t.setName("indexing-starter");
-        return t;
-    });
+    /**
+     * Потоки, ведущие обход сайтов. Их не больше, чем сайтов обходится одновременно,
+     * остальные сайты ждут в очереди и не держат потоков.
+     */
+    private ExecutorService indexingExecutor;
 
     public IndexingService(SiteService siteService,
                            PageService pageService,
-                           LemmaService lemmaService,
-                           IndexService indexService,
+                           SiteDataCleaner siteDataCleaner,
+                           SiteRebuildService siteRebuildService,
                            CrawlerService crawlerService,
-                           SitesList sitesList, IndexingState indexingState) {
+                           SitesList sitesList, IndexingState indexingState,
+                           CrawlerConfig crawlerConfig) {
         this.siteService = siteService;
         this.pageService = pageService;
-        this.lemmaService = lemmaService;
-        this.indexService = indexService;
+        this.siteDataCleaner = siteDataCleaner;
+        this.siteRebuildService = siteRebuildService;
         this.crawlerService = crawlerService;
         this.sitesList = sitesList;
         this.indexingState = indexingState;
+        this.crawlerConfig = crawlerConfig;
+        this.indexingExecutor = createIndexingExecutor();
+    }
+
+
+    private ExecutorService createIndexingExecutor() {
+        return Executors.newFixedThreadPool(Math.max(1, crawlerConfig.getMaxConcurrentSites()), r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            t.setName("indexing-starter");
+            return t;
+        });
     }
 
 
@@ -76,14 +89,23 @@ public class IndexingService {
 
 
     public synchronized void startFullIndexing() {
+        startFullIndexing(false);
+    }
+
+
+    /**
+     * @param incremental не удалять данные сайтов, а перепроверить сохранённые страницы:
+     *                    неизменившиеся не переиндексируются, исчезнувшие (404/410) удаляются
+     */
+    public synchronized void startFullIndexing(boolean incremental) {
         if (indexingState.isActive()) {
             throw new IllegalStateException("Индексация уже запущена");
         }
         if (indexingExecutor.isShutdown()) {
-            throw new IllegalStateException("Executor сервис остановлен");
+            indexingExecutor = createIndexingExecutor();
         }
         indexingState.setActive(true);
-        logger.info("=== ЗАПУСК ПОЛНОЙ ИНДЕКСАЦИИ ===");
+        logger.info(incremental ? "=== ЗАПУСК ИНКРЕМЕНТАЛЬНОЙ ИНДЕКСАЦИИ ===" : "=== ЗАПУСК ПОЛНОЙ ИНДЕКСАЦИИ ===");
         List<SitesList.SiteConfig> configs = sitesList.getSites();
         if (configs.isEmpty()) {
             indexingState.setActive(false);
@@ -98,7 +120,7 @@ public class IndexingService {
                     return;
                 }
                 try {
-                    indexSite(config);
+                    indexSite(config, incremental);
                 } catch (Exception e) {
                     logger.error("Ошибка при индексации сайта {}: {}",
                             config.getUrl(), e.getMessage(), e);
@@ -114,10 +136,11 @@ public class IndexingService {
     }
 
 
-    private void indexSite(SitesList.SiteConfig config) {
+    private void indexSite(SitesList.SiteConfig config, boolean incremental) {
         logger.info("🔥🔥🔥 indexSite() ВЫЗВАН для сайта: {}", config.getUrl());
         logger.info("Параметры: url={}, name={}", config.getUrl(), config.getName());
         Site site = null;
+        Site target = null;
         try {
             logger.info("1. Поиск сайта в БД: {}", config.getUrl());
             site = siteService.findByUrl(config.getUrl())
@@ -127,21 +150,44 @@ public class IndexingService {
                     });
             logger.info("   Сайт получен: id={}, status={}, name={}",
                     site.getId(), site.getStatus(), site.getName());
-            logger.info("2. Очистка старых данных для сайта: {}", config.getUrl());
-            clearSiteData(site);
+            target = site;
+            if (crawlerService.canResumeCrawl(site)) {
+                logger.info("2. Найден прерванный обход, данные сайта {} сохраняются", config.getUrl());
+            } else if (incremental) {
+                logger.info("2. Инкрементальный обход, данные сайта {} сохраняются", config.getUrl());
+            } else if (siteRebuildService.shouldRebuild(site)) {
+                logger.info("2. Пересборка сайта {} в теневую копию, поиск работает по текущим данным",
+                        config.getUrl());
+                target = siteRebuildService.prepareShadow(site);
+                indexingState.startRebuild(site.getId());
+            } else {
+                logger.info("2. Очистка старых данных для сайта: {}", config.getUrl());
+                clearSiteData(site);
+            }
+            boolean rebuild = target != site;
             logger.info("3. Установка статуса INDEXING для сайта: {}", config.getUrl());
-            siteService.updateStatus(site, Status.INDEXING);
+            siteService.updateStatus(target, Status.INDEXING);
             logger.info("4. ВЫЗОВ crawlerService.crawlSite() для {}", site.getUrl());
             logger.info("   Время перед вызовом: {}", System.currentTimeMillis());
+            boolean completed;
             try {
-                crawlerService.crawlSite(site);
+                completed = crawlerService.crawlSite(target, incremental);
                 logger.info("5. crawlerService.crawlSite() ЗАВЕРШЕН для {}", site.getUrl());
             } catch (Exception e) {
                 logger.error("💥 ИСКЛЮЧЕНИЕ в crawlerService.crawlSite() для {}:", site.getUrl(), e);
                 throw e;
             }
             logger.info("6. Время после вызова: {}", System.currentTimeMillis());
-            if (indexingState.isActive()) {
+            if (rebuild) {
+                // Частично обойдённая копия не должна заменить полные данные: она остаётся
+                // вместе с контрольной точкой, и следующая пересборка продолжит обход
+                if (!completed || !indexingState.isActive()) {
+                    logger.info("⏸️ Пересборка сайта {} не завершена, поиск остаётся на прежних данных",
+                            site.getUrl());
+                } else if (siteRebuildService.complete(target, site)) {
+                    logger.info("✅ Сайт {} пересобран и переключен на новые данные", site.getUrl());
+                }
+            } else if (indexingState.isActive()) {
                 long pageCount = pageService.countBySite(site);
                 logger.info("7. Индексация активна. Найдено страниц: {}", pageCount);
                 siteService.updateStatus(site, Status.INDEXED);
@@ -158,13 +204,17 @@ public class IndexingService {
             if (site != null) {
                 try {
                     logger.info("Попытка обновить статус сайта с ошибкой");
-                    siteService.updateStatusWithError(site,
+                    // При пересборке ошибку получает теневая копия, действующий сайт остаётся доступен поиску
+                    siteService.updateStatusWithError(target != null ? target : site,
                             "Ошибка индексации: " + e.getMessage());
                 } catch (Exception ex) {
                     logger.warn("Не удалось обновить статус ошибки: {}", ex.getMessage());
                 }
             }
         } finally {
+            if (site != null && target != null && target != site) {
+                indexingState.finishRebuild(site.getId());
+            }
             logger.info("8. Finally блок для сайта: {}", config.getUrl());
             logger.info("========== indexSite() ЗАВЕРШЕН для {} ==========", config.getUrl());
         }
@@ -174,9 +224,7 @@ public class IndexingService {
     private void clearSiteData(Site site) {
         try {
             logger.debug("Очистка данных сайта: {}", site.getUrl());
-            pageService.deleteAllBySite(site);
-            lemmaService.deleteAllBySite(site);
-            indexService.deleteAllBySite(site);
+            siteDataCleaner.wipe(site);
         } catch (Exception e) {
             logger.warn("Ошибка при очистке данных сайта {}: {}",
                     site.getUrl(), e.getMessage());
@@ -192,16 +240,26 @@ public class IndexingService {
                     .findFirst()
                     .orElseThrow(() -> new IllegalArgumentException(
                             "Страница не принадлежит ни одному из сайтов в конфигурации"));
-            Site site = siteService.findByUrl(config.getUrl())
+            Site live = siteService.findByUrl(config.getUrl())
                     .orElseGet(() ->
                             siteService.createNewSite(config.getUrl(), config.getName()));
+            // Во время пересборки страница пишется в теневую копию: действующий сайт будет заменён ею,
+            // и обновление, записанное в него, пропало бы. Копия, оставшаяся от прерванной пересборки,
+            // может так и не стать действующей, поэтому без идущей пересборки пишем в сам сайт
+            Site site = indexingState.isRebuilding(live.getId())
+                    ? siteService.findShadow(live)
+                            .filter(shadow -> shadow.getStatus() != Status.FAILED)
+                            .orElse(live)
+                    : live;
+            if (site != live) {
+                logger.info("Сайт {} пересобирается, страница записывается в теневую копию id={}",
+                        live.getUrl(), site.getId());
+            }
             String path = extractPath(url, site.getUrl());
             pageService.findByPathAndSite(path, site).ifPresent(page -> {
                 logger.info("Удаляем старую версию страницы: {}", path);
                 try {
-                    indexService.deleteByPage(page);
-                    lemmaService.decrementAllForPage(page);
-                    pageService.delete(page);
+                    pageService.deleteIndexed(page);
                 } catch (Exception e) {
                     logger.warn("Ошибка при удалении старой версии: {}", e.getMessage());
                 }
@@ -257,8 +315,7 @@ public class IndexingService {
             logger.warn("Ошибка при остановке executor: {}", e.getMessage());
         }
         try {
-            siteService.findAll().stream()
-                    .filter(site -> site.getStatus() == Status.INDEXING)
+            siteService.findIndexing()
                     .forEach(site -> {
                         siteService.updateStatusWithError(
                                 site, "Индексация остановлена пользователем");
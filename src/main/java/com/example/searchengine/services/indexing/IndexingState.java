@@ -2,12 +2,20 @@ package com.example.searchengine.services.indexing;
 
 import org.springframework.stereotype.Component;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Component
 public class IndexingState {
     private final AtomicBoolean indexingInProgress = new AtomicBoolean(false);
+    /** id действующих сайтов, которые сейчас пересобираются в теневую копию */
+    private final Set<Long> rebuildingSites = ConcurrentHashMap.newKeySet();
 
     public boolean isActive() { return indexingInProgress.get(); }
     public void setActive(boolean active) { indexingInProgress.set(active); }
-}
\ No newline at end of file
+
+    public void startRebuild(Long liveSiteId) { rebuildingSites.add(liveSiteId); }
+    public void finishRebuild(Long liveSiteId) { rebuildingSites.remove(liveSiteId); }
+    public boolean isRebuilding(Long liveSiteId) { return rebuildingSites.contains(liveSiteId); }
+}
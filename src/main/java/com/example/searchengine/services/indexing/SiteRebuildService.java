@@ -0,0 +1,132 @@
+package com.example.searchengine.services.indexing;
+
+import com.example.searchengine.config.CrawlerConfig;
+import com.example.searchengine.models.Site;
+import com.example.searchengine.models.Status;
+import com.example.searchengine.services.PageService;
+import com.example.searchengine.services.SiteDataCleaner;
+import com.example.searchengine.services.SiteService;
+import com.example.searchengine.services.crawler.CrawlerService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Полная переиндексация без простоя поиска: новые страницы, леммы и индекс пишутся в теневую
+ * копию сайта, а действующий сайт продолжает обслуживать поиск. При успехе копия
+ * подменяет сайт в одной транзакции, прежнее поколение удаляется в фоне; при сбое
+ * действующие данные не затрагиваются.
+ */
+@Service
+public class SiteRebuildService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SiteRebuildService.class);
+
+    private final CrawlerConfig crawlerConfig;
+    private final SiteService siteService;
+    private final PageService pageService;
+    private final SiteDataCleaner siteDataCleaner;
+    private final CrawlerService crawlerService;
+
+    private final ExecutorService cleanupExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "site-generation-cleanup");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SiteRebuildService(CrawlerConfig crawlerConfig, SiteService siteService, PageService pageService,
+                              SiteDataCleaner siteDataCleaner, CrawlerService crawlerService) {
+        this.crawlerConfig = crawlerConfig;
+        this.siteService = siteService;
+        this.pageService = pageService;
+        this.siteDataCleaner = siteDataCleaner;
+        this.crawlerService = crawlerService;
+        // Поколения, не удалённые до перезапуска приложения
+        cleanupExecutor.submit(this::cleanupRetired);
+    }
+
+
+    /**
+     * Пересобирать ли сайт в теневую копию: только если по нему уже работает поиск.
+     */
+    boolean shouldRebuild(Site live) {
+        return crawlerConfig.isShadowRebuild() && live.getStatus() == Status.INDEXED
+                && pageService.countBySite(live) > 0;
+    }
+
+
+    /**
+     * Теневая копия для пересборки. Прерванная пересборка продолжается в прежней копии,
+     * иначе копия очищается или создаётся заново.
+     */
+    Site prepareShadow(Site live) {
+        Optional<Site> existing = siteService.findShadow(live);
+        if (existing.isPresent()) {
+            Site shadow = existing.get();
+            if (crawlerService.canResumeCrawl(shadow)) {
+                logger.info("🔁 Продолжаем пересборку сайта {} в теневой копии id={}", live.getUrl(), shadow.getId());
+                return shadow;
+            }
+            siteDataCleaner.wipe(shadow);
+            return shadow;
+        }
+        Site shadow = siteService.createShadow(live);
+        logger.info("🌓 Пересборка сайта {} в теневой копии id={}, поиск работает по id={}",
+                live.getUrl(), shadow.getId(), live.getId());
+        return shadow;
+    }
+
+
+    /**
+     * Переключает поиск на теневую копию, если обход в неё удался; иначе оставляет действующие данные.
+     * Вызывается только после полного обхода: остановленная пересборка копию не публикует.
+     *
+     * @return {@code true}, если сайт переключён на новое поколение
+     */
+    boolean complete(Site shadow, Site live) {
+        Site built = siteService.findById(shadow.getId()).orElse(shadow);
+        long pageCount = pageService.countBySite(built);
+        if (built.getStatus() == Status.FAILED || pageCount == 0) {
+            logger.warn("⚠️ Пересборка сайта {} не удалась ({}), поиск остаётся на прежних данных",
+                    live.getUrl(), pageCount == 0 ? "нет страниц" : built.getLastError());
+            if (built.getStatus() != Status.FAILED) {
+                siteService.updateStatusWithError(built, "Пересборка не дала результатов");
+            }
+            return false;
+        }
+        siteService.promoteShadow(built, live);
+        cleanupExecutor.submit(() -> deleteGeneration(live));
+        return true;
+    }
+
+
+    private void cleanupRetired() {
+        try {
+            siteService.findRetired().forEach(this::deleteGeneration);
+        } catch (Exception e) {
+            logger.warn("Ошибка при удалении заменённых поколений: {}", e.getMessage());
+        }
+    }
+
+
+    private void deleteGeneration(Site retired) {
+        try {
+            siteDataCleaner.deleteSite(retired);
+            logger.info("🧹 Прежнее поколение сайта {} (id={}) удалено", retired.getUrl(), retired.getId());
+        } catch (Exception e) {
+            logger.error("❌ Не удалось удалить прежнее поколение сайта {} (id={}): {}",
+                    retired.getUrl(), retired.getId(), e.getMessage());
+        }
+    }
+
+
+    @PreDestroy
+    public void destroy() {
+        cleanupExecutor.shutdownNow();
+    }
+}
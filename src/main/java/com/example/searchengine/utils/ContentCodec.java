@@ -0,0 +1,109 @@
+package com.example.searchengine.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Способ хранения HTML страницы в {@code page_content.data}. Идентификатор кодека хранится
+ * рядом с данными, поэтому новые кодеки добавляются без перекодирования старых строк.
+ */
+public enum ContentCodec {
+
+    /**
+     * UTF-8 без сжатия.
+     */
+    NONE(0) {
+        @Override
+        public byte[] encode(String content) {
+            return content.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] data) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    },
+
+    /**
+     * Формат функции MySQL {@code COMPRESS()}: длина исходных байт (4 байта, little-endian) и поток zlib.
+     * Тем же форматом миграция переносит старые страницы, а {@code UNCOMPRESS()} читает данные из SQL.
+     */
+    DEFLATE(1) {
+        @Override
+        public byte[] encode(String content) {
+            byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+            if (raw.length == 0) {
+                return raw;
+            }
+            Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+            try {
+                deflater.setInput(raw);
+                deflater.finish();
+                ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 16);
+                out.write(raw.length);
+                out.write(raw.length >>> 8);
+                out.write(raw.length >>> 16);
+                out.write(raw.length >>> 24);
+                byte[] buffer = new byte[8192];
+                while (!deflater.finished()) {
+                    out.write(buffer, 0, deflater.deflate(buffer));
+                }
+                return out.toByteArray();
+            } finally {
+                deflater.end();
+            }
+        }
+
+        @Override
+        public String decode(byte[] data) {
+            if (data.length < 4) {
+                return "";
+            }
+            int length = (data[0] & 0xFF) | (data[1] & 0xFF) << 8 | (data[2] & 0xFF) << 16 | (data[3] & 0xFF) << 24;
+            byte[] raw = new byte[length];
+            Inflater inflater = new Inflater();
+            try {
+                inflater.setInput(data, 4, data.length - 4);
+                int read = 0;
+                while (read < length && !inflater.finished()) {
+                    int n = inflater.inflate(raw, read, length - read);
+                    if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    read += n;
+                }
+                return new String(raw, 0, read, StandardCharsets.UTF_8);
+            } catch (DataFormatException e) {
+                throw new IllegalStateException("Повреждённое содержимое страницы", e);
+            } finally {
+                inflater.end();
+            }
+        }
+    };
+
+    private final int id;
+
+    ContentCodec(int id) {
+        this.id = id;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public abstract byte[] encode(String content);
+
+    public abstract String decode(byte[] data);
+
+    public static ContentCodec of(int id) {
+        for (ContentCodec codec : values()) {
+            if (codec.id == id) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный кодек содержимого: " + id);
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.searchengine.utils;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Классификатор URL: разбирает адрес один раз и возвращает неизменяемый {@link UrlVerdict}.
+ * Все регулярные выражения скомпилированы заранее.
+ */
+@Component
+public class UrlClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(UrlClassifier.class);
+    private static final int MAX_URL_LENGTH = 200;
+    private static final int MAX_QUERY_PARAMS = 3;
+    private static final int MAX_FILTER_PARAMS = 4;
+    private static final int MEMO_CAPACITY = 20_000;
+
+    private static final Pattern INVALID_CHARACTERS = Pattern.compile("[\\s<>\"{}|\\\\^`]");
+    private static final Pattern DEEP_PAGINATION = Pattern.compile("(?:[?&](?:page|p)=|/page/)[5-9]");
+    private static final Pattern REPEATED_SLASHES = Pattern.compile("(?<=[^:])/{2,}");
+
+    private static final Set<String> BINARY_EXTENSIONS = Set.of(
+            ".pdf", ".jpg", ".jpeg", ".png", ".gif", ".bmp", ".svg", ".webp", ".ico",
+            ".zip", ".rar", ".7z", ".tar", ".gz",
+            ".mp3", ".mp4", ".avi", ".mov", ".wmv", ".flv", ".webm",
+            ".exe", ".dmg", ".iso",
+            ".doc", ".docx", ".xls", ".xlsx", ".ppt", ".pptx",
+            ".css", ".js", ".json", ".xml", ".rss"
+    );
+
+    private static final String[] STATIC_PATHS = {
+            "/assets/", "/static/", "/images/", "/img/", "/css/", "/js/",
+            "/fonts/", "/uploads/", "/files/", "/download/", "/media/"
+    };
+
+    private static final String[] FILTER_PARAMS = {"filter=", "sort=", "order=", "view=", "show="};
+
+    private static final String[] INDEX_FILES = {
+            "index.html", "index.php", "index.htm", "index.aspx",
+            "default.html", "default.aspx", "home.html", "main.html"
+    };
+
+
+    /**
+     * Классификатор одного сайта с памятью уже разобранных URL:
+     * навигационные ссылки повторяются почти на каждой странице.
+     */
+    public SiteClassifier forSite(String siteUrl) {
+        return new SiteClassifier(siteUrl);
+    }
+
+
+    public UrlVerdict classify(String url, String siteUrl) {
+        return classify(url, siteUrl, hostWithoutWww(siteUrl));
+    }
+
+
+    public final class SiteClassifier {
+        private final String siteUrl;
+        private final String siteHost;
+        private final Map<String, UrlVerdict> memo = new ConcurrentHashMap<>();
+
+        private SiteClassifier(String siteUrl) {
+            this.siteUrl = siteUrl;
+            this.siteHost = hostWithoutWww(siteUrl);
+        }
+
+        public UrlVerdict classify(String url) {
+            if (url == null) {
+                return UrlVerdict.INVALID;
+            }
+            UrlVerdict verdict = memo.get(url);
+            if (verdict == null) {
+                verdict = UrlClassifier.this.classify(url, siteUrl, siteHost);
+                if (memo.size() >= MEMO_CAPACITY) {
+                    memo.clear();
+                }
+                memo.put(url, verdict);
+            }
+            return verdict;
+        }
+    }
+
+
+    private UrlVerdict classify(String url, String siteUrl, String siteHost) {
+        if (url == null || url.isEmpty() || INVALID_CHARACTERS.matcher(url).find()) {
+            logger.debug("URL содержит недопустимые символы: {}", url);
+            return UrlVerdict.INVALID;
+        }
+        URI uri;
+        try {
+            uri = new URI(url);
+        } catch (URISyntaxException e) {
+            logger.debug("Ошибка парсинга URI {}: {}", url, e.getMessage());
+            return UrlVerdict.INVALID;
+        }
+        boolean crawlable = !url.startsWith("mailto:") && !url.startsWith("javascript:") && !url.startsWith("#");
+        String lowerUrl = url.toLowerCase(Locale.ROOT);
+        int queryStart = indexOfQuery(url);
+        String baseUrl = queryStart >= 0 ? url.substring(0, queryStart) : url;
+        boolean trap = isTrap(url, lowerUrl);
+        boolean indexable = !isBinary(lowerUrl) && url.length() <= MAX_URL_LENGTH && !trap;
+        String host = uri.getHost();
+        boolean sameDomain = host != null && siteHost != null && host.replace("www.", "").equals(siteHost);
+        return new UrlVerdict(crawlable, indexable, sameDomain, trap,
+                normalizePath(uri, url, siteUrl), baseUrl, queryStart >= 0);
+    }
+
+
+    private static boolean isBinary(String lowerUrl) {
+        int lastSlash = lowerUrl.lastIndexOf('/');
+        int lastDot = lowerUrl.lastIndexOf('.');
+        if (lastDot > lastSlash && BINARY_EXTENSIONS.contains(lowerUrl.substring(lastDot))) {
+            return true;
+        }
+        for (String path : STATIC_PATHS) {
+            if (lowerUrl.contains(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+
+    private static boolean isTrap(String url, String lowerUrl) {
+        int separators = 0;
+        int ampersands = 0;
+        for (int i = 0; i < lowerUrl.length(); i++) {
+            char c = lowerUrl.charAt(i);
+            if (c == '&') {
+                ampersands++;
+                separators++;
+            } else if (c == '?') {
+                separators++;
+            }
+        }
+        if (separators > MAX_QUERY_PARAMS) {
+            return true;
+        }
+        if (ampersands + 1 > MAX_FILTER_PARAMS) {
+            for (String param : FILTER_PARAMS) {
+                if (lowerUrl.contains(param)) {
+                    return true;
+                }
+            }
+        }
+        return DEEP_PAGINATION.matcher(url).find();
+    }
+
+
+    private static String normalizePath(URI uri, String fullUrl, String siteUrl) {
+        if (!fullUrl.startsWith(siteUrl)) {
+            return "/";
+        }
+        String path = uri.getPath();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+        if (!path.startsWith("/")) {
+            path = "/" + path;
+        }
+        if (!path.endsWith("/")) {
+            for (String indexFile : INDEX_FILES) {
+                if (path.endsWith(indexFile)) {
+                    return path.substring(0, path.lastIndexOf('/') + 1);
+                }
+            }
+        }
+        String cleaned = REPEATED_SLASHES.matcher(path).replaceAll("/");
+        if (cleaned.length() > 1 && cleaned.endsWith("/")) {
+            cleaned = cleaned.substring(0, cleaned.length() - 1);
+        }
+        return cleaned;
+    }
+
+
+    private static int indexOfQuery(String url) {
+        for (int i = 0; i < url.length(); i++) {
+            char c = url.charAt(i);
+            if (c == '?' || c == '#') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+
+    private static String hostWithoutWww(String siteUrl) {
+        try {
+            String host = new URI(siteUrl).getHost();
+            return host != null ? host.replace("www.", "") : null;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.searchengine.utils;
+
+/**
+ * Результат однократного разбора URL классификатором {@link UrlClassifier}.
+ *
+ * @param crawlable      URL синтаксически корректен и ведёт на веб-страницу (не mailto:, не javascript:)
+ * @param indexable      не бинарный файл, не статический ресурс, не слишком длинный и не ловушка
+ * @param sameDomain     хост совпадает с хостом сайта (без учёта www.)
+ * @param trap           много параметров, фильтры или слишком глубокая пагинация
+ * @param normalizedPath путь страницы в том виде, в котором он хранится в БД
+ * @param baseUrl        URL без query-строки и фрагмента
+ * @param hasQuery       URL содержит query-строку или фрагмент
+ */
+public record UrlVerdict(boolean crawlable,
+                         boolean indexable,
+                         boolean sameDomain,
+                         boolean trap,
+                         String normalizedPath,
+                         String baseUrl,
+                         boolean hasQuery) {
+
+    public static final String INVALID_PATH = "/error-invalid-url";
+
+    static final UrlVerdict INVALID = new UrlVerdict(false, false, false, false, INVALID_PATH, "", false);
+
+    /**
+     * URL можно ставить в очередь обхода сайта.
+     */
+    public boolean isAccepted() {
+        return crawlable && indexable && sameDomain;
+    }
+}
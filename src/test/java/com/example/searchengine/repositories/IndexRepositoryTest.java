@@ -0,0 +1,114 @@
+package com.example.searchengine.repositories;
+
+import com.example.searchengine.models.Index;
+import com.example.searchengine.models.Lemma;
+import com.example.searchengine.models.Page;
+import com.example.searchengine.models.Site;
+import com.example.searchengine.repositories.IndexRepository.PageRelevance;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нативные запросы написаны для MySQL; H2 в режиме MySQL с регистронезависимыми именами
+ * понимает их без изменений.
+ */
+@DataJpaTest(properties = "spring.datasource.url="
+        + "jdbc:h2:mem:index-repository;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class IndexRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private IndexRepository indexRepository;
+
+    private Lemma cat;
+    private Lemma dog;
+    private Lemma fish;
+    private Page first;
+    private Page second;
+    private Page third;
+
+
+    @BeforeEach
+    void setUp() {
+        Site site = em.persist(new Site("Сайт", "https://example.com"));
+        cat = em.persist(new Lemma("кот", 3, site));
+        dog = em.persist(new Lemma("собака", 2, site));
+        fish = em.persist(new Lemma("рыба", 1, site));
+        first = em.persist(new Page("/first", 200, site));
+        second = em.persist(new Page("/second", 200, site));
+        third = em.persist(new Page("/third", 200, site));
+
+        em.persist(new Index(first, cat, 1.0f));
+        em.persist(new Index(first, dog, 0.5f));
+        em.persist(new Index(second, cat, 2.0f));
+        em.persist(new Index(second, dog, 3.0f));
+        em.persist(new Index(second, fish, 1.0f));
+        em.persist(new Index(third, cat, 5.0f));
+        em.flush();
+        em.clear();
+    }
+
+
+    @Test
+    void returnsOnlyPagesContainingAllLemmas() {
+        List<PageRelevance> pages = indexRepository.findPagesWithAllLemmas(List.of(cat.getId(), dog.getId()), 2);
+
+        assertThat(pages).extracting(PageRelevance::getPageId)
+                .containsExactly(second.getId(), first.getId());
+    }
+
+
+    @Test
+    void relevanceIsSumOfRanksInDescendingOrder() {
+        List<PageRelevance> pages = indexRepository.findPagesWithAllLemmas(List.of(cat.getId(), dog.getId()), 2);
+
+        assertThat(pages).extracting(PageRelevance::getRelevance)
+                .containsExactly(5.0, 1.5);
+    }
+
+
+    @Test
+    void singleLemmaMatchesEveryPageWithIt() {
+        List<PageRelevance> pages = indexRepository.findPagesWithAllLemmas(List.of(cat.getId()), 1);
+
+        assertThat(pages).extracting(PageRelevance::getPageId)
+                .containsExactly(third.getId(), second.getId(), first.getId());
+    }
+
+
+    @Test
+    void equalRelevanceIsOrderedByPageId() {
+        em.getEntityManager().createNativeQuery("UPDATE `index` SET `rank` = 1").executeUpdate();
+
+        List<PageRelevance> pages = indexRepository.findPagesWithAllLemmas(List.of(cat.getId()), 1);
+
+        assertThat(pages).extracting(PageRelevance::getPageId)
+                .containsExactly(first.getId(), second.getId(), third.getId());
+    }
+
+
+    @Test
+    void pageMustContainEveryRequestedLemma() {
+        List<PageRelevance> pages = indexRepository.findPagesWithAllLemmas(
+                List.of(cat.getId(), dog.getId(), fish.getId()), 3);
+
+        assertThat(pages).extracting(PageRelevance::getPageId).containsExactly(second.getId());
+        assertThat(indexRepository.findPagesWithAllLemmas(List.of(dog.getId(), fish.getId()), 2))
+                .extracting(PageRelevance::getPageId).containsExactly(second.getId());
+        assertThat(indexRepository.findPagesWithAllLemmas(List.of(fish.getId(), first.getId() + 1000), 2))
+                .isEmpty();
+    }
+}
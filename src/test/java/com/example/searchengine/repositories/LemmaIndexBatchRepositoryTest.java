@@ -0,0 +1,178 @@
+package com.example.searchengine.repositories;
+
+import com.example.searchengine.models.Page;
+import com.example.searchengine.models.Site;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SQL репозитория написан для MySQL; H2 в режиме MySQL с регистронезависимыми именами
+ * выполняет его без изменений. {@code reconcileFrequencies} использует {@code UPDATE ... LEFT JOIN},
+ * которого в H2 нет, поэтому здесь не проверяется.
+ */
+@DataJpaTest(properties = "spring.datasource.url="
+        + "jdbc:h2:mem:lemma-index-batch;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE")
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LemmaIndexBatchRepository.class)
+class LemmaIndexBatchRepositoryTest {
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LemmaIndexBatchRepository repository;
+
+    private long siteId;
+    private long otherSiteId;
+    private long pageId;
+
+
+    @BeforeEach
+    void setUp() {
+        Site site = em.persist(new Site("Сайт", "https://example.com"));
+        Site other = em.persist(new Site("Другой", "https://example.org"));
+        Page page = em.persist(new Page("/", 200, site));
+        em.flush();
+        siteId = site.getId();
+        otherSiteId = other.getId();
+        pageId = page.getId();
+    }
+
+
+    @Test
+    void insertMissingLemmasKeepsExistingRows() {
+        repository.insertMissingLemmas(siteId, List.of("кот", "собака"));
+        long catId = repository.findLemmaId(siteId, "кот");
+        repository.applyFrequencyDeltas(Map.of(catId, 4L));
+
+        repository.insertMissingLemmas(siteId, List.of("кот", "рыба"));
+
+        Map<String, Long> ids = repository.findLemmaIds(siteId, List.of("кот", "собака", "рыба"));
+        assertThat(ids).containsOnlyKeys("кот", "собака", "рыба").containsEntry("кот", catId);
+        assertThat(frequency(catId)).isEqualTo(4);
+        assertThat(frequency(ids.get("рыба"))).isZero();
+    }
+
+
+    @Test
+    void lemmasAreSeparatedBySite() {
+        repository.insertMissingLemmas(siteId, List.of("кот"));
+        repository.insertMissingLemmas(otherSiteId, List.of("кот"));
+
+        assertThat(repository.findLemmaId(siteId, "кот")).isNotEqualTo(repository.findLemmaId(otherSiteId, "кот"));
+        assertThat(repository.findLemmaIds(siteId, List.of("кот", "собака"))).containsOnlyKeys("кот");
+        assertThat(repository.findLemmaId(siteId, "собака")).isNull();
+    }
+
+
+    @Test
+    void largeBatchesAreSplitIntoChunks() {
+        List<String> lemmas = IntStream.range(0, 2500).mapToObj(i -> "слово" + i).toList();
+
+        repository.insertMissingLemmas(siteId, lemmas);
+
+        assertThat(repository.findLemmaIds(siteId, lemmas)).hasSize(2500);
+    }
+
+
+    @Test
+    void insertIndexesRejectsDuplicateRow() {
+        repository.insertMissingLemmas(siteId, List.of("кот", "собака"));
+        Map<String, Long> ids = repository.findLemmaIds(siteId, List.of("кот", "собака"));
+
+        repository.insertIndexes(pageId, Map.of(ids.get("кот"), 1.5f, ids.get("собака"), 0.5f));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT SUM(`rank`) FROM `index` WHERE page_id = ?",
+                Double.class, pageId)).isEqualTo(2.0);
+        assertThatThrownBy(() -> repository.insertIndexes(pageId, Map.of(ids.get("кот"), 1.0f)))
+                .isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+
+    @Test
+    void deletePageIndexesReturnsLemmaIdsOfPage() {
+        repository.insertMissingLemmas(siteId, List.of("кот", "собака"));
+        Map<String, Long> ids = repository.findLemmaIds(siteId, List.of("кот", "собака"));
+        repository.insertIndexes(pageId, Map.of(ids.get("кот"), 1f, ids.get("собака"), 1f));
+
+        List<Long> removed = repository.deletePageIndexes(pageId);
+
+        assertThat(removed).containsExactlyInAnyOrderElementsOf(ids.values());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `index` WHERE page_id = ?",
+                Long.class, pageId)).isZero();
+        assertThat(repository.deletePageIndexes(pageId)).isEmpty();
+    }
+
+
+    @Test
+    void applyFrequencyDeltasAddsSignedDeltas() {
+        repository.insertMissingLemmas(siteId, List.of("кот", "собака", "рыба"));
+        Map<String, Long> ids = repository.findLemmaIds(siteId, List.of("кот", "собака", "рыба"));
+        repository.applyFrequencyDeltas(Map.of(ids.get("кот"), 3L, ids.get("собака"), 2L));
+
+        repository.applyFrequencyDeltas(Map.of(ids.get("кот"), -1L, ids.get("собака"), 5L));
+
+        assertThat(frequency(ids.get("кот"))).isEqualTo(2);
+        assertThat(frequency(ids.get("собака"))).isEqualTo(7);
+        assertThat(frequency(ids.get("рыба"))).isZero();
+    }
+
+
+    @Test
+    void unusedLemmasHaveNoFrequencyAndNoIndexRows() {
+        repository.insertMissingLemmas(siteId, List.of("кот", "собака", "рыба"));
+        Map<String, Long> ids = repository.findLemmaIds(siteId, List.of("кот", "собака", "рыба"));
+        long cat = ids.get("кот");
+        long dog = ids.get("собака");
+        long fish = ids.get("рыба");
+        repository.applyFrequencyDeltas(Map.of(cat, 1L));
+        // Частота уже обнулена, но строка индекса ещё есть — лемму удалять нельзя
+        repository.insertIndexes(pageId, Map.of(dog, 1f));
+
+        List<Long> unused = repository.findUnusedLemmas(List.of(cat, dog, fish));
+
+        assertThat(unused).containsExactly(fish);
+        assertThat(repository.deleteUnusedLemmas(unused)).isEqualTo(1);
+        assertThat(repository.findLemmaIds(siteId, List.of("кот", "собака", "рыба"))).containsOnlyKeys("кот", "собака");
+    }
+
+
+    @Test
+    void deleteUnusedLemmasRechecksCandidates() {
+        repository.insertMissingLemmas(siteId, List.of("кот", "собака"));
+        Map<String, Long> ids = repository.findLemmaIds(siteId, List.of("кот", "собака"));
+        List<Long> candidates = repository.findUnusedLemmas(ids.values());
+        assertThat(candidates).containsExactlyInAnyOrderElementsOf(ids.values());
+
+        // Между выбором кандидатов и удалением одна лемма снова попала на страницу
+        repository.insertIndexes(pageId, Map.of(ids.get("кот"), 1f));
+        repository.applyFrequencyDeltas(Map.of(ids.get("кот"), 1L));
+
+        assertThat(repository.deleteUnusedLemmas(candidates)).isEqualTo(1);
+        assertThat(repository.findLemmaIds(siteId, List.of("кот", "собака"))).containsOnlyKeys("кот");
+    }
+
+
+    private int frequency(long lemmaId) {
+        return jdbcTemplate.queryForObject("SELECT frequency FROM lemma WHERE id = ?", Integer.class, lemmaId);
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.searchengine.services;
+
+import com.example.searchengine.config.CrawlerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LemmaIdCacheTest {
+
+    private static LemmaIdCache cache(long maxEntries) {
+        CrawlerConfig config = new CrawlerConfig();
+        config.setLemmaCacheEntries(maxEntries);
+        return new LemmaIdCache(config);
+    }
+
+
+    @Test
+    void keepsIdsPerSite() {
+        LemmaIdCache cache = cache(100);
+        cache.put(1, "дом", 10);
+        cache.put(2, "дом", 20);
+
+        assertThat(cache.get(1, "дом")).isEqualTo(10L);
+        assertThat(cache.get(2, "дом")).isEqualTo(20L);
+        assertThat(cache.get(1, "кот")).isNull();
+        assertThat(cache.get(3, "дом")).isNull();
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+
+    @Test
+    void overwritesIdWithoutGrowing() {
+        LemmaIdCache cache = cache(100);
+        cache.put(1, "дом", 10);
+        cache.put(1, "дом", 11);
+
+        assertThat(cache.get(1, "дом")).isEqualTo(11L);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+
+    @Test
+    void survivesResize() {
+        LemmaIdCache cache = cache(100_000);
+        for (int i = 0; i < 5000; i++) {
+            cache.put(1, "лемма" + i, i);
+        }
+
+        assertThat(cache.size()).isEqualTo(5000);
+        for (int i = 0; i < 5000; i++) {
+            assertThat(cache.get(1, "лемма" + i)).isEqualTo((long) i);
+        }
+    }
+
+
+    @Test
+    void stopsCachingAtCapacity() {
+        LemmaIdCache cache = cache(2);
+        cache.putAll(1, Map.of("а", 1L, "б", 2L));
+        cache.put(1, "в", 3);
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get(1, "в")).isNull();
+    }
+
+
+    @Test
+    void evictsIdsAndSites() {
+        LemmaIdCache cache = cache(100);
+        cache.putAll(1, Map.of("дом", 1L, "кот", 2L, "лес", 3L));
+        cache.put(2, "дом", 4);
+
+        cache.evictIds(1, List.of(1L, 3L));
+        assertThat(cache.get(1, "дом")).isNull();
+        assertThat(cache.get(1, "лес")).isNull();
+        assertThat(cache.get(1, "кот")).isEqualTo(2L);
+        assertThat(cache.size()).isEqualTo(2);
+
+        cache.evictSite(2);
+        assertThat(cache.get(2, "дом")).isNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+
+    @Test
+    void readsStayConsistentWhileTableGrows() throws Exception {
+        LemmaIdCache cache = cache(1_000_000);
+        for (int i = 0; i < 100; i++) {
+            cache.put(1, "стабильная" + i, i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    cache.put(1, "новая" + i, 1000 + i);
+                }
+            });
+            List<Future<Boolean>> readers = List.of(
+                    executor.submit(() -> readStable(cache, writer)),
+                    executor.submit(() -> readStable(cache, writer)));
+            writer.get(30, TimeUnit.SECONDS);
+            for (Future<Boolean> reader : readers) {
+                assertThat(reader.get(30, TimeUnit.SECONDS)).isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    private static boolean readStable(LemmaIdCache cache, Future<?> writer) {
+        while (!writer.isDone()) {
+            for (int i = 0; i < 100; i++) {
+                Long id = cache.get(1, "стабильная" + i);
+                if (id == null || id != i) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
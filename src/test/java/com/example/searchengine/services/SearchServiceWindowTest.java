@@ -0,0 +1,115 @@
+package com.example.searchengine.services;
+
+import com.example.searchengine.models.Site;
+import com.example.searchengine.repositories.IndexRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchServiceWindowTest {
+
+    private record Relevance(Long pageId, Double relevance) implements IndexRepository.PageRelevance {
+        @Override
+        public Long getPageId() {
+            return pageId;
+        }
+
+        @Override
+        public Double getRelevance() {
+            return relevance;
+        }
+    }
+
+
+    /**
+     * Совпадения сайта: id страниц и суммарные ранги уже по убыванию, как их возвращает запрос.
+     */
+    private static SearchService.SiteMatches site(String url, long firstPageId, double... relevances) {
+        List<IndexRepository.PageRelevance> ranked = new ArrayList<>();
+        for (int i = 0; i < relevances.length; i++) {
+            ranked.add(new Relevance(firstPageId + i, relevances[i]));
+        }
+        return new SearchService.SiteMatches(new Site(url, url), List.of(), ranked, relevances[0]);
+    }
+
+
+    private static List<Long> pageIds(List<SearchService.Hit> window) {
+        return window.stream().map(SearchService.Hit::pageId).toList();
+    }
+
+
+    @Test
+    void mergesSitesByNormalizedRelevance() {
+        SearchService.SiteMatches first = site("https://a.example", 100, 10, 6, 2);
+        SearchService.SiteMatches second = site("https://b.example", 200, 4, 3, 1);
+
+        List<SearchService.Hit> window = SearchService.selectWindow(List.of(first, second), 0, 10);
+
+        // Нормированные релевантности: a = 1.0, 0.6, 0.2; b = 1.0, 0.75, 0.25
+        assertThat(pageIds(window)).containsExactly(100L, 200L, 201L, 101L, 202L, 102L);
+        assertThat(window.get(2).relevance()).isEqualTo(0.75);
+    }
+
+
+    @Test
+    void tiesKeepSiteOrder() {
+        SearchService.SiteMatches first = site("https://a.example", 100, 2, 1);
+        SearchService.SiteMatches second = site("https://b.example", 200, 4, 2);
+
+        assertThat(pageIds(SearchService.selectWindow(List.of(first, second), 0, 4)))
+                .containsExactly(100L, 200L, 101L, 201L);
+    }
+
+
+    @Test
+    void appliesOffsetAndLimit() {
+        SearchService.SiteMatches first = site("https://a.example", 100, 10, 6, 2);
+        SearchService.SiteMatches second = site("https://b.example", 200, 4, 3, 1);
+
+        assertThat(pageIds(SearchService.selectWindow(List.of(first, second), 2, 3)))
+                .containsExactly(201L, 101L, 202L);
+        assertThat(pageIds(SearchService.selectWindow(List.of(first, second), 5, 3))).containsExactly(102L);
+        assertThat(SearchService.selectWindow(List.of(first, second), 6, 3)).isEmpty();
+        assertThat(SearchService.selectWindow(List.of(first, second), 0, 0)).isEmpty();
+        assertThat(SearchService.selectWindow(List.of(), 0, 10)).isEmpty();
+    }
+
+
+    @Test
+    void matchesFullSortForRandomInput() {
+        Random random = new Random(42);
+        List<SearchService.SiteMatches> sites = new ArrayList<>();
+        for (int s = 0; s < 5; s++) {
+            double[] relevances = new double[1 + random.nextInt(30)];
+            for (int i = 0; i < relevances.length; i++) {
+                relevances[i] = 1 + random.nextInt(50);
+            }
+            double[] descending = Arrays.stream(relevances).boxed()
+                    .sorted(Comparator.reverseOrder()).mapToDouble(Double::doubleValue).toArray();
+            sites.add(site("https://site" + s + ".example", s * 1000L, descending));
+        }
+        List<SearchService.Hit> expected = new ArrayList<>();
+        for (int s = 0; s < sites.size(); s++) {
+            SearchService.SiteMatches matches = sites.get(s);
+            for (int i = 0; i < matches.ranked().size(); i++) {
+                expected.add(new SearchService.Hit(matches, matches.ranked().get(i).getPageId(),
+                        matches.relevance(i)));
+            }
+        }
+        // Устойчивая сортировка сохраняет порядок сайтов и позиций при равной релевантности
+        expected.sort(Comparator.comparingDouble(SearchService.Hit::relevance).reversed());
+
+        for (int offset : new int[]{0, 7, 20}) {
+            List<Long> window = pageIds(SearchService.selectWindow(sites, offset, 15));
+            List<Long> sorted = pageIds(expected.subList(Math.min(offset, expected.size()),
+                    Math.min(offset + 15, expected.size())));
+            assertThat(window).isEqualTo(sorted);
+        }
+    }
+}
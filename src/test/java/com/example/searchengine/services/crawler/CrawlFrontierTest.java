@@ -0,0 +1,125 @@
+package com.example.searchengine.services.crawler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CrawlFrontierTest {
+
+    private static final String SPILL_FILE = "frontier.spill";
+
+    @TempDir
+    Path dir;
+
+
+    @Test
+    void keepsBreadthFirstOrderAcrossSpill() throws IOException {
+        try (CrawlFrontier frontier = CrawlFrontier.open(dir, 2, false)) {
+            for (int i = 0; i < 6; i++) {
+                frontier.offer("https://example.com/" + i, 1);
+            }
+            assertThat(frontier.size()).isEqualTo(6);
+            assertThat(drain(frontier)).containsExactly("https://example.com/0", "https://example.com/1",
+                    "https://example.com/2", "https://example.com/3", "https://example.com/4", "https://example.com/5");
+            assertThat(frontier.isEmpty()).isTrue();
+        }
+    }
+
+
+    @Test
+    void resumesInFlightAndQueuedUrls() throws IOException {
+        try (CrawlFrontier frontier = CrawlFrontier.open(dir, 2, false)) {
+            for (int i = 0; i < 5; i++) {
+                frontier.offer("https://example.com/" + i, 1);
+            }
+            frontier.poll();
+        }
+        assertThat(CrawlFrontier.hasCheckpoint(dir)).isTrue();
+
+        try (CrawlFrontier resumed = CrawlFrontier.open(dir, 2, true)) {
+            assertThat(resumed.isResumed()).isTrue();
+            CrawlFrontier.Entry first = resumed.poll();
+            assertThat(first.url()).isEqualTo("https://example.com/0");
+            assertThat(first.revisit()).isTrue();
+            resumed.complete(first);
+            assertThat(drain(resumed)).containsExactly("https://example.com/1", "https://example.com/2",
+                    "https://example.com/3", "https://example.com/4");
+            assertThat(resumed.isEmpty()).isTrue();
+        }
+    }
+
+
+    @Test
+    void resumeAfterCrashCountsLinesWrittenAfterCheckpointAndDropsTornLine() throws IOException {
+        CrawlFrontier crashed = CrawlFrontier.open(dir, 1, false);
+        for (int i = 0; i < 3; i++) {
+            crashed.offer("https://example.com/" + i, 1);
+        }
+        crashed.checkpoint();
+        // Строки, сброшенные буфером после контрольной точки, и недописанная строка при аварии
+        Files.writeString(dir.resolve(SPILL_FILE), "2\thttps://example.com/3\n2\thttps://exa",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        try (CrawlFrontier resumed = CrawlFrontier.open(dir, 1, true)) {
+            assertThat(resumed.isResumed()).isTrue();
+            assertThat(resumed.size()).isEqualTo(4);
+            assertThat(drain(resumed)).containsExactly("https://example.com/0", "https://example.com/1",
+                    "https://example.com/2", "https://example.com/3");
+            assertThat(resumed.isEmpty()).isTrue();
+            assertThat(resumed.poll()).isNull();
+        }
+    }
+
+
+    @Test
+    void resumeWithShorterSpillThanCheckpointDoesNotHang() throws IOException {
+        CrawlFrontier crashed = CrawlFrontier.open(dir, 1, false);
+        for (int i = 0; i < 4; i++) {
+            crashed.offer("https://example.com/" + i, 1);
+        }
+        crashed.checkpoint();
+        // Файл очереди потерял последние строки, а заголовок контрольной точки ещё считает их
+        Files.writeString(dir.resolve(SPILL_FILE), "1\thttps://example.com/1\n", StandardCharsets.UTF_8);
+
+        try (CrawlFrontier resumed = CrawlFrontier.open(dir, 1, true)) {
+            assertThat(drain(resumed)).containsExactly("https://example.com/0", "https://example.com/1");
+            assertThat(resumed.isEmpty()).isTrue();
+            assertThat(resumed.size()).isZero();
+        }
+    }
+
+
+    @Test
+    void skipsMalformedSpillLineWithoutDroppingTheRest() throws IOException {
+        CrawlFrontier crashed = CrawlFrontier.open(dir, 1, false);
+        crashed.offer("https://example.com/0", 1);
+        crashed.checkpoint();
+        Files.writeString(dir.resolve(SPILL_FILE), "x\thttps://example.com/bad\n1\thttps://example.com/1\n",
+                StandardCharsets.UTF_8);
+
+        try (CrawlFrontier resumed = CrawlFrontier.open(dir, 4, true)) {
+            assertThat(drain(resumed)).containsExactly("https://example.com/0", "https://example.com/1");
+            assertThat(resumed.isEmpty()).isTrue();
+        }
+    }
+
+
+    private static List<String> drain(CrawlFrontier frontier) {
+        List<String> urls = new ArrayList<>();
+        CrawlFrontier.Entry entry;
+        while ((entry = frontier.poll()) != null) {
+            urls.add(entry.url());
+            frontier.complete(entry);
+        }
+        return urls;
+    }
+}
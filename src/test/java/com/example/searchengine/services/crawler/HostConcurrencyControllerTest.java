@@ -0,0 +1,128 @@
+package com.example.searchengine.services.crawler;
+
+import com.example.searchengine.config.CrawlerConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HostConcurrencyControllerTest {
+
+    private static HostConcurrencyController.Limit adaptive(int limit, int maxLimit) {
+        return new HostConcurrencyController.Limit(1, "example.com", limit, maxLimit, true, 1000);
+    }
+
+
+    @Test
+    void growsByOneAfterHealthyWindow() {
+        HostConcurrencyController.Limit limit = adaptive(2, 10);
+
+        limit.onSuccess(100);
+        assertThat(limit.stats().limit()).isEqualTo(2);
+        limit.onSuccess(100);
+        assertThat(limit.stats().limit()).isEqualTo(3);
+        for (int i = 0; i < 3; i++) {
+            limit.onSuccess(100);
+        }
+        assertThat(limit.stats().limit()).isEqualTo(4);
+    }
+
+
+    @Test
+    void doesNotGrowWhenLatencyAboveTarget() {
+        HostConcurrencyController.Limit limit = adaptive(2, 10);
+
+        for (int i = 0; i < 10; i++) {
+            limit.onSuccess(5000);
+        }
+        assertThat(limit.stats().limit()).isEqualTo(2);
+        assertThat(limit.stats().p95LatencyMs()).isEqualTo(5000);
+    }
+
+
+    @Test
+    void neverExceedsMaxLimit() {
+        HostConcurrencyController.Limit limit = adaptive(3, 4);
+
+        for (int i = 0; i < 100; i++) {
+            limit.onSuccess(10);
+        }
+        assertThat(limit.stats().limit()).isEqualTo(4);
+    }
+
+
+    @Test
+    void halvesOnOverloadOncePerInterval() {
+        HostConcurrencyController.Limit limit = adaptive(8, 10);
+
+        limit.onOverload();
+        assertThat(limit.stats().limit()).isEqualTo(4);
+        // Сигналы от загрузок, начатых до снижения, не снижают лимит повторно
+        limit.onOverload();
+        assertThat(limit.stats().limit()).isEqualTo(4);
+    }
+
+
+    @Test
+    void staysAtLeastOne() {
+        HostConcurrencyController.Limit limit = adaptive(1, 10);
+
+        limit.onOverload();
+        assertThat(limit.stats().limit()).isEqualTo(1);
+    }
+
+
+    @Test
+    void fixedLimitIgnoresSignals() {
+        HostConcurrencyController.Limit limit =
+                new HostConcurrencyController.Limit(1, "example.com", 5, 5, false, 1000);
+
+        limit.onOverload();
+        for (int i = 0; i < 20; i++) {
+            limit.onSuccess(10);
+        }
+        assertThat(limit.stats().limit()).isEqualTo(5);
+    }
+
+
+    @Test
+    void setMaxLimitCapsAdaptiveLimitAndPinsFixedOne() {
+        HostConcurrencyController.Limit adaptive = adaptive(6, 10);
+        adaptive.setMaxLimit(4);
+        assertThat(adaptive.stats().limit()).isEqualTo(4);
+        adaptive.setMaxLimit(8);
+        assertThat(adaptive.stats().limit()).isEqualTo(4);
+        assertThat(adaptive.stats().maxLimit()).isEqualTo(8);
+
+        HostConcurrencyController.Limit fixed =
+                new HostConcurrencyController.Limit(1, "example.com", 5, 5, false, 1000);
+        fixed.setMaxLimit(8);
+        assertThat(fixed.stats().limit()).isEqualTo(8);
+    }
+
+
+    @Test
+    void acquireWaitsForFreeSlot() throws InterruptedException {
+        HostConcurrencyController.Limit limit = adaptive(1, 1);
+
+        assertThat(limit.tryAcquire(10)).isTrue();
+        assertThat(limit.tryAcquire(10)).isFalse();
+        assertThat(limit.stats().inFlight()).isEqualTo(1);
+        limit.release();
+        assertThat(limit.tryAcquire(10)).isTrue();
+    }
+
+
+    @Test
+    void limitsAreKeptPerSite() {
+        CrawlerConfig config = new CrawlerConfig();
+        HostConcurrencyController controller = new HostConcurrencyController(config);
+        HostConcurrencyController.Limit live = controller.limitFor(1, "example.com", 8);
+        HostConcurrencyController.Limit shadow = controller.limitFor(2, "example.com", 8);
+
+        assertThat(live).isNotSameAs(shadow);
+        assertThat(controller.limitFor(1, "example.com", 8)).isSameAs(live);
+        controller.remove(live);
+        assertThat(controller.getStats()).extracting(HostConcurrencyController.HostLimitStats::siteId)
+                .containsExactly(2L);
+    }
+}
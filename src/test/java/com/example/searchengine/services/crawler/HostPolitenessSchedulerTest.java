@@ -0,0 +1,68 @@
+package com.example.searchengine.services.crawler;
+
+import com.example.searchengine.config.CrawlerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HostPolitenessSchedulerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+
+    @Test
+    void burstIsServedImmediately() {
+        HostPolitenessScheduler.TokenBucket bucket = new HostPolitenessScheduler.TokenBucket(2.0, 3, 0);
+
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isEqualTo(500);
+    }
+
+
+    @Test
+    void reservationsBeyondBurstAreSpacedByRate() {
+        HostPolitenessScheduler.TokenBucket bucket = new HostPolitenessScheduler.TokenBucket(4.0, 1, 0);
+
+        assertThat(bucket.reserve(0)).isZero();
+        assertThat(bucket.reserve(0)).isEqualTo(250);
+        assertThat(bucket.reserve(0)).isEqualTo(500);
+        assertThat(bucket.reserve(0)).isEqualTo(750);
+    }
+
+
+    @Test
+    void refillsOverTimeUpToCapacity() {
+        HostPolitenessScheduler.TokenBucket bucket = new HostPolitenessScheduler.TokenBucket(1.0, 2, 0);
+        bucket.reserve(0);
+        bucket.reserve(0);
+
+        assertThat(bucket.reserve(SECOND)).isZero();
+        // Долгий простой не копит больше burst токенов
+        long later = 100 * SECOND;
+        assertThat(bucket.reserve(later)).isZero();
+        assertThat(bucket.reserve(later)).isZero();
+        assertThat(bucket.reserve(later)).isEqualTo(1000);
+    }
+
+
+    @Test
+    void crawlDelayLimitsHostToOneRequestPerDelay() {
+        HostPolitenessScheduler scheduler = new HostPolitenessScheduler(new CrawlerConfig());
+        scheduler.setCrawlDelay("example.com", 2000);
+
+        assertThat(scheduler.reserve("example.com")).isZero();
+        assertThat(scheduler.reserve("example.com")).isBetween(1000L, 2000L);
+        assertThat(scheduler.reserve("other.example")).isZero();
+    }
+
+
+    @Test
+    void hostOfNormalizesCase() {
+        assertThat(HostPolitenessScheduler.hostOf("https://Example.COM/path?q=1")).isEqualTo("example.com");
+        assertThat(HostPolitenessScheduler.hostOf("not a url")).isEqualTo("not a url");
+    }
+}
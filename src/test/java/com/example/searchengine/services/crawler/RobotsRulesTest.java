@@ -0,0 +1,114 @@
+package com.example.searchengine.services.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RobotsRulesTest {
+
+    @Test
+    void usesOnlyWildcardGroup() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: Googlebot
+                Disallow: /google-only
+
+                User-agent: *
+                Disallow: /private
+                """);
+
+        assertThat(rules.isAllowed("/google-only")).isTrue();
+        assertThat(rules.isAllowed("/private/page")).isFalse();
+        assertThat(rules.isAllowed("/public")).isTrue();
+    }
+
+
+    @Test
+    void consecutiveUserAgentsShareGroup() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: Yandex
+                User-agent: *
+                Disallow: /admin
+                User-agent: Bingbot
+                Disallow: /
+                """);
+
+        assertThat(rules.isAllowed("/admin")).isFalse();
+        assertThat(rules.isAllowed("/news")).isTrue();
+    }
+
+
+    @Test
+    void longestMatchWinsAndAllowWinsTie() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /catalog
+                Allow: /catalog/public
+                Disallow: /same
+                Allow: /same
+                """);
+
+        assertThat(rules.isAllowed("/catalog/item")).isFalse();
+        assertThat(rules.isAllowed("/catalog/public/item")).isTrue();
+        assertThat(rules.isAllowed("/same")).isTrue();
+    }
+
+
+    @Test
+    void supportsWildcardsAndEndAnchor() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow: /*?sort=
+                Disallow: /*.pdf$
+                """);
+
+        assertThat(rules.isAllowed("/catalog?sort=price")).isFalse();
+        assertThat(rules.isAllowed("/catalog?page=2")).isTrue();
+        assertThat(rules.isAllowed("/files/doc.pdf")).isFalse();
+        assertThat(rules.isAllowed("/files/doc.pdf?download=1")).isTrue();
+    }
+
+
+    @Test
+    void emptyDisallowAllowsEverything() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Disallow:
+                """);
+
+        assertThat(rules.isAllowed("/anything")).isTrue();
+    }
+
+
+    @Test
+    void readsCrawlDelayAndSitemapsIgnoringComments() {
+        RobotsRules rules = RobotsRules.parse("User-agent: *\r\n"
+                + "Crawl-delay: 1.5 # секунды\r\n"
+                + "Sitemap: https://example.com/sitemap.xml\r\n"
+                + "User-agent: Other\r\n"
+                + "Crawl-delay: 10\r\n"
+                + "Sitemap: https://example.com/news.xml\r\n");
+
+        assertThat(rules.getCrawlDelayMs()).isEqualTo(1500);
+        assertThat(rules.getSitemaps())
+                .containsExactly("https://example.com/sitemap.xml", "https://example.com/news.xml");
+    }
+
+
+    @Test
+    void ignoresMalformedCrawlDelay() {
+        RobotsRules rules = RobotsRules.parse("""
+                User-agent: *
+                Crawl-delay: soon
+                """);
+
+        assertThat(rules.getCrawlDelayMs()).isZero();
+        assertThat(RobotsRules.ALLOW_ALL.isAllowed("/")).isTrue();
+    }
+
+
+    @Test
+    void requestPathKeepsQueryAndDropsFragment() {
+        assertThat(RobotsRules.requestPath("https://example.com/a/b?x=1#top")).isEqualTo("/a/b?x=1");
+        assertThat(RobotsRules.requestPath("https://example.com")).isEqualTo("/");
+    }
+}
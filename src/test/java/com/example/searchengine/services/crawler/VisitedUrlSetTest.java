@@ -0,0 +1,81 @@
+package com.example.searchengine.services.crawler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VisitedUrlSetTest {
+
+    @Test
+    void addsEachPathOnce() {
+        VisitedUrlSet visited = new VisitedUrlSet();
+
+        assertThat(visited.add("/news")).isTrue();
+        assertThat(visited.add("/news")).isFalse();
+        assertThat(visited.add("/news/")).isTrue();
+        assertThat(visited.size()).isEqualTo(2);
+    }
+
+
+    @Test
+    void containsOnlyAddedPaths() {
+        VisitedUrlSet visited = new VisitedUrlSet();
+        visited.add("/каталог/товар?id=1");
+
+        assertThat(visited.contains("/каталог/товар?id=1")).isTrue();
+        assertThat(visited.contains("/каталог/товар?id=2")).isFalse();
+        assertThat(visited.contains("")).isFalse();
+    }
+
+
+    @Test
+    void keepsAllPathsAcrossGrowth() {
+        VisitedUrlSet visited = new VisitedUrlSet();
+        int count = 100_000;
+        for (int i = 0; i < count; i++) {
+            assertThat(visited.add("/page/" + i)).isTrue();
+        }
+
+        assertThat(visited.size()).isEqualTo(count);
+        for (int i = 0; i < count; i++) {
+            assertThat(visited.contains("/page/" + i)).isTrue();
+        }
+        assertThat(visited.contains("/page/" + count)).isFalse();
+    }
+
+
+    @Test
+    void concurrentAddsAcceptEachPathOnce() throws Exception {
+        VisitedUrlSet visited = new VisitedUrlSet();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Integer>> added = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                added.add(executor.submit(() -> {
+                    int accepted = 0;
+                    for (int i = 0; i < 20_000; i++) {
+                        if (visited.add("/page/" + i)) {
+                            accepted++;
+                        }
+                    }
+                    return accepted;
+                }));
+            }
+            int total = 0;
+            for (Future<Integer> future : added) {
+                total += future.get(30, TimeUnit.SECONDS);
+            }
+            assertThat(total).isEqualTo(20_000);
+            assertThat(visited.size()).isEqualTo(20_000);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.searchengine.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContentCodecTest {
+
+    private static final String HTML = "<html><head><title>Главная</title></head>"
+            + "<body>" + "<p>Текст страницы с повторами. </p>".repeat(200) + "</body></html>";
+
+
+    @Test
+    void deflateRoundTrip() {
+        byte[] encoded = ContentCodec.DEFLATE.encode(HTML);
+
+        assertThat(encoded.length).isLessThan(HTML.getBytes(StandardCharsets.UTF_8).length / 4);
+        assertThat(ContentCodec.DEFLATE.decode(encoded)).isEqualTo(HTML);
+    }
+
+
+    @Test
+    void deflateWritesMysqlCompressFormat() throws DataFormatException {
+        byte[] raw = HTML.getBytes(StandardCharsets.UTF_8);
+        byte[] encoded = ContentCodec.DEFLATE.encode(HTML);
+
+        int length = (encoded[0] & 0xFF) | (encoded[1] & 0xFF) << 8 | (encoded[2] & 0xFF) << 16
+                | (encoded[3] & 0xFF) << 24;
+        assertThat(length).isEqualTo(raw.length);
+        // После длины — обычный поток zlib с заголовком, как у COMPRESS()
+        assertThat(encoded[4]).isEqualTo((byte) 0x78);
+        Inflater inflater = new Inflater();
+        inflater.setInput(encoded, 4, encoded.length - 4);
+        byte[] inflated = new byte[length];
+        assertThat(inflater.inflate(inflated)).isEqualTo(length);
+        inflater.end();
+        assertThat(inflated).isEqualTo(raw);
+    }
+
+
+    @Test
+    void decodesDataProducedLikeMysqlCompress() {
+        byte[] raw = HTML.getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(raw.length);
+        out.write(raw.length >>> 8);
+        out.write(raw.length >>> 16);
+        out.write(raw.length >>> 24);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(raw);
+        deflater.finish();
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        deflater.end();
+
+        assertThat(ContentCodec.DEFLATE.decode(out.toByteArray())).isEqualTo(HTML);
+    }
+
+
+    @Test
+    void emptyContentIsEmptyLikeCompressOfEmptyString() {
+        assertThat(ContentCodec.DEFLATE.encode("")).isEmpty();
+        assertThat(ContentCodec.DEFLATE.decode(new byte[0])).isEmpty();
+    }
+
+
+    @Test
+    void corruptedDataFails() {
+        byte[] encoded = ContentCodec.DEFLATE.encode(HTML);
+        for (int i = 4; i < 12; i++) {
+            encoded[i] = (byte) 0xFF;
+        }
+
+        assertThatThrownBy(() -> ContentCodec.DEFLATE.decode(encoded)).isInstanceOf(IllegalStateException.class);
+    }
+
+
+    @Test
+    void noneStoresUtf8AndCodecsResolveById() {
+        assertThat(ContentCodec.NONE.decode(ContentCodec.NONE.encode(HTML))).isEqualTo(HTML);
+        assertThat(ContentCodec.of(0)).isEqualTo(ContentCodec.NONE);
+        assertThat(ContentCodec.of(1)).isEqualTo(ContentCodec.DEFLATE);
+        assertThatThrownBy(() -> ContentCodec.of(7)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
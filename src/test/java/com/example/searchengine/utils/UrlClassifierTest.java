@@ -0,0 +1,209 @@
+package com.example.searchengine.utils;
+
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UrlClassifierTest {
+
+    private static final String SITE = "https://www.example.com";
+
+    private final UrlClassifier classifier = new UrlClassifier();
+
+
+    static Stream<String> urls() {
+        return Stream.of(
+                "https://www.example.com",
+                "https://www.example.com/",
+                "https://www.example.com/news",
+                "https://www.example.com/news/",
+                "https://www.example.com/news//today/",
+                "https://www.example.com/catalog/index.html",
+                "https://www.example.com/about/default.aspx",
+                "https://www.example.com/main.html",
+                "https://example.com/news",
+                "https://blog.example.com/post",
+                "https://other.org/page",
+                "https://www.example.com/docs/manual.PDF",
+                "https://www.example.com/photo.jpeg",
+                "https://www.example.com/download?file=report.pdf",
+                "https://www.example.com/static/app.html",
+                "https://www.example.com/media/video",
+                "https://www.example.com/feed.rss",
+                "https://www.example.com/news?page=2",
+                "https://www.example.com/news?page=5",
+                "https://www.example.com/news?page=15",
+                "https://www.example.com/news?page=70",
+                "https://www.example.com/news/page/3",
+                "https://www.example.com/news/page/9",
+                "https://www.example.com/list?p=6",
+                "https://www.example.com/list?a=1&b=2&c=3",
+                "https://www.example.com/list?a=1&b=2&c=3&d=4",
+                "https://www.example.com/list?sort=price&a=1&b=2",
+                "https://www.example.com/list?sort=price&a=1&b=2&c=3&d=4",
+                "https://www.example.com/list?view=grid&x=1&y=2&z=3",
+                "https://www.example.com/article#comments",
+                "https://www.example.com/archive/2024/05/17/post",
+                "https://www.example.com/" + "a".repeat(190),
+                "https://www.example.com/" + "a".repeat(180),
+                "mailto:info@example.com",
+                "javascript:void(0)",
+                "#top",
+                "https://www.example.com/with space",
+                "https://www.example.com/quote\"d",
+                "https://www.example.com/brace{x}",
+                ""
+        );
+    }
+
+
+    @ParameterizedTest
+    @MethodSource("urls")
+    void matchesLegacyFilterRules(String url) {
+        UrlVerdict verdict = classifier.classify(url, SITE);
+        boolean legacyCrawlable = LegacyUrlFilter.isValidForCrawling(url);
+
+        assertThat(verdict.crawlable()).as("crawlable").isEqualTo(legacyCrawlable);
+        if (!legacyCrawlable) {
+            return;
+        }
+        assertThat(verdict.indexable()).as("indexable").isEqualTo(LegacyUrlFilter.shouldIndex(url));
+        assertThat(verdict.sameDomain()).as("sameDomain").isEqualTo(LegacyUrlFilter.isSameDomain(url, SITE));
+        assertThat(verdict.normalizedPath()).as("normalizedPath").isEqualTo(LegacyUrlFilter.normalizePath(url, SITE));
+        assertThat(verdict.baseUrl()).as("baseUrl").isEqualTo(url.split("[?#]")[0]);
+    }
+
+
+    @Test
+    void siteClassifierMemoizesVerdicts() {
+        UrlClassifier.SiteClassifier site = classifier.forSite(SITE);
+
+        UrlVerdict first = site.classify("https://www.example.com/news?page=2");
+        assertThat(site.classify("https://www.example.com/news?page=2")).isSameAs(first);
+        assertThat(first.isAccepted()).isTrue();
+        assertThat(first.hasQuery()).isTrue();
+        assertThat(site.classify(null)).isEqualTo(UrlVerdict.INVALID);
+    }
+
+
+    @Test
+    void invalidUrlGetsInvalidPath() {
+        UrlVerdict verdict = classifier.classify("https://www.example.com/a b", SITE);
+
+        assertThat(verdict.isAccepted()).isFalse();
+        assertThat(verdict.normalizedPath()).isEqualTo(UrlVerdict.INVALID_PATH);
+    }
+
+
+    /**
+     * Правила прежнего {@code UrlFilter} без состояния (множества посещённых базовых URL),
+     * по которым сверяется классификатор.
+     */
+    private static final class LegacyUrlFilter {
+
+        private static final List<String> BINARY_EXTENSIONS = List.of(
+                ".pdf", ".jpg", ".jpeg", ".png", ".gif", ".bmp", ".svg", ".webp", ".ico",
+                ".zip", ".rar", ".7z", ".tar", ".gz",
+                ".mp3", ".mp4", ".avi", ".mov", ".wmv", ".flv", ".webm",
+                ".exe", ".dmg", ".iso",
+                ".doc", ".docx", ".xls", ".xlsx", ".ppt", ".pptx",
+                ".css", ".js", ".json", ".xml", ".rss");
+
+        private static final List<String> STATIC_PATHS = List.of(
+                "/assets/", "/static/", "/images/", "/img/", "/css/", "/js/",
+                "/fonts/", "/uploads/", "/files/", "/download/", "/media/");
+
+        static boolean hasInvalidCharacters(String url) {
+            return url == null || url.isEmpty() || url.contains(" ") || url.matches(".*[\\s<>\"{}|\\\\^`].*");
+        }
+
+        static boolean isValidForCrawling(String url) {
+            try {
+                new URI(url);
+                return !url.startsWith("mailto:") && !url.startsWith("javascript:") && !url.startsWith("#")
+                        && !url.isEmpty() && !hasInvalidCharacters(url);
+            } catch (URISyntaxException e) {
+                return false;
+            }
+        }
+
+        static boolean shouldIndex(String url) {
+            return !isBinaryFile(url) && !hasInvalidCharacters(url) && url.length() <= 200 && !isTrapUrl(url);
+        }
+
+        static boolean isBinaryFile(String url) {
+            String lowerUrl = url.toLowerCase();
+            return BINARY_EXTENSIONS.stream().anyMatch(lowerUrl::endsWith)
+                    || STATIC_PATHS.stream().anyMatch(lowerUrl::contains);
+        }
+
+        static boolean isTrapUrl(String url) {
+            String lowerUrl = url.toLowerCase();
+            if (lowerUrl.split("[?&]").length - 1 > 3) {
+                return true;
+            }
+            if ((lowerUrl.contains("filter=") || lowerUrl.contains("sort=") || lowerUrl.contains("order=")
+                    || lowerUrl.contains("view=") || lowerUrl.contains("show="))
+                    && lowerUrl.split("&").length > 4) {
+                return true;
+            }
+            return isPaginationUrl(url) && (url.matches(".*[?&]page=[5-9][0-9]*.*")
+                    || url.matches(".*/page/[5-9][0-9]*.*")
+                    || url.matches(".*[?&]p=[5-9][0-9]*.*"));
+        }
+
+        static boolean isPaginationUrl(String url) {
+            String lowerUrl = url.toLowerCase();
+            return lowerUrl.contains("page=") || lowerUrl.contains("p=") || lowerUrl.contains("/page/")
+                    || lowerUrl.contains("/p/") || lowerUrl.contains("offset=") || lowerUrl.contains("start=")
+                    || lowerUrl.contains("limit=") || lowerUrl.contains("per-page=")
+                    || lowerUrl.contains("per_page=");
+        }
+
+        static boolean isSameDomain(String url, String siteUrl) {
+            try {
+                String host = new URI(url).getHost();
+                String siteHost = new URI(siteUrl).getHost();
+                return host != null && siteHost != null
+                        && host.replace("www.", "").equals(siteHost.replace("www.", ""));
+            } catch (URISyntaxException e) {
+                return false;
+            }
+        }
+
+        static String normalizePath(String fullUrl, String baseUrl) {
+            if (!fullUrl.startsWith(baseUrl)) {
+                return "/";
+            }
+            try {
+                String path = new URI(fullUrl).getPath();
+                if (path == null || path.isEmpty()) {
+                    path = "/";
+                }
+                if (!path.startsWith("/")) {
+                    path = "/" + path;
+                }
+                if (!path.endsWith("/") && (path.endsWith("index.html") || path.endsWith("index.php")
+                        || path.endsWith("index.htm") || path.endsWith("index.aspx")
+                        || path.endsWith("default.html") || path.endsWith("default.aspx")
+                        || path.endsWith("home.html") || path.endsWith("main.html"))) {
+                    return path.substring(0, path.lastIndexOf('/') + 1);
+                }
+                String cleaned = path.replaceAll("(?<=[^:])/{2,}", "/");
+                if (cleaned.length() > 1 && cleaned.endsWith("/")) {
+                    cleaned = cleaned.substring(0, cleaned.length() - 1);
+                }
+                return cleaned;
+            } catch (URISyntaxException e) {
+                return "/";
+            }
+        }
+    }
+}